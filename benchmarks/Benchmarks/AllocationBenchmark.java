@@ -0,0 +1,79 @@
+package Benchmarks;
+
+import Core.City;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.interfaces.IStation;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Measures the bytes allocated by the accessors and statistics of a {@link SyntheticCity}
+ *
+ * @apiNote Arguments are optional key=value pairs: stations, sensors (per station) and readings (per sensor).
+ * Uses the allocation counter of the HotSpot {@link com.sun.management.ThreadMXBean}.
+ */
+public class AllocationBenchmark {
+    private static final int CALLS = 2_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Report the bytes allocated by a call, after warming it up
+     *
+     * @param name The name of the call
+     * @param task The {@link Harness.Task call} to measure
+     */
+    private static void measure(String name, Harness.Task task) throws Exception {
+        for (int i = 0; i < CALLS; i++) {
+            Harness.consume(task.run());
+        }
+
+        long thread = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < CALLS; i++) {
+            Harness.consume(task.run());
+        }
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - before;
+
+        System.out.printf("%-50s %,12.0f bytes/call%n", name, allocated / (double) CALLS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int stations = Harness.argument(args, "stations", 200);
+        int sensors = Harness.argument(args, "sensors", 8);
+        int readings = Harness.argument(args, "readings", 500);
+
+        City city = new SyntheticCity(stations, sensors, readings).fill(new City("Allocation"));
+        String stationName = SyntheticCity.stationName(0);
+        IStation station = city.getStation(stationName);
+        Parameter parameter = SyntheticCity.parameterOf(0);
+        LocalDateTime start = SyntheticCity.START.plusHours(readings / 4);
+        LocalDateTime end = SyntheticCity.START.plusHours(readings / 2);
+
+        System.out.printf("City: %d stations x %d sensors x %d readings%n%n", stations, sensors, readings);
+        measure("City.getStations", () -> city.getStations().length);
+        measure("Station.getSensors", () -> station.getSensors().length);
+        measure("Sensor.getMeasurements", () -> station.getSensors()[0].getMeasurements().length);
+        measure("getMeasurementsByStation AVG", () ->
+                city.getMeasurementsByStation(AggregationOperator.AVG, parameter).length);
+        measure("getMeasurementsByStation AVG window", () ->
+                city.getMeasurementsByStation(AggregationOperator.AVG, parameter, start, end).length);
+        measure("getMeasurementsBySensor MAX", () ->
+                city.getMeasurementsBySensor(stationName, AggregationOperator.MAX, parameter).length);
+        measure("getMeasurementsBySensor MAX window", () ->
+                city.getMeasurementsBySensor(stationName, AggregationOperator.MAX, parameter, start, end).length);
+    }
+}
@@ -0,0 +1,120 @@
+package Benchmarks;
+
+import Core.Aggregate;
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import Core.HeapMeasurementStore;
+import Core.MappedMeasurementStore;
+import Core.MeasurementArchive;
+import Core.MeasurementStore;
+import Core.Measurement;
+import Core.Sensor;
+import edu.ma02.core.enumerations.Unit;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Compares a {@link Sensor} kept in a {@link HeapMeasurementStore} with one kept in a {@link MappedMeasurementStore}
+ *
+ * @apiNote Arguments are optional key=value pairs: readings (per sensor), sensors (with a few readings each)
+ * and dir (of the archive). Run with a small heap, e.g. -Xmx256m, to see the heap store fail where the mapped one
+ * keeps going. The sensors show what the archive allocates for many small sensors.
+ */
+public class ArchiveBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    /**
+     * Get the heap in use after a garbage collection
+     *
+     * @return Returns the used heap in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Fill a sensor with minute readings and query windows of it
+     *
+     * @param name     The name of the store
+     * @param store    The empty {@link MeasurementStore store} of the sensor
+     * @param readings The number of readings to insert
+     */
+    private static void run(String name, MeasurementStore store, int readings) throws Exception {
+        long heapBefore = usedHeap();
+        Sensor sensor = new Sensor("QA0NO20001",
+                new CartesianCoordinates(0, 0, 0),
+                new GeographicCoordinates(0, 0),
+                store
+        );
+        String unit = Unit.getUnitString(sensor.getParameter().getUnit());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < readings; i++) {
+            sensor.addMeasurement(i % 500, START.plusMinutes(i), unit);
+        }
+        long insertTime = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+
+        // Windows with ragged edges, so buckets and single readings are both read
+        long first = Measurement.toEpochMinute(START);
+        int queries = 1_000;
+        start = System.nanoTime();
+        double checksum = 0;
+        for (int i = 0; i < queries; i++) {
+            long from = first + i * 7919L % readings;
+            Aggregate aggregate = sensor.aggregate(from + 17, from + readings / 10 + 43);
+            checksum += aggregate.getSum();
+        }
+        long queryTime = System.nanoTime() - start;
+
+        System.out.printf("%-6s %,12d readings: %8.1f ns/insert, %10.1f µs/window, %,8d KiB of heap (%s)%n",
+                name, readings, insertTime / (double) readings, queryTime / 1_000.0 / queries,
+                (heapAfter - heapBefore) / 1024, checksum);
+        Harness.consume(sensor);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int readings = Harness.argument(args, "readings", 5_000_000);
+        Path directory = Path.of(Harness.argument(args, "dir", System.getProperty("java.io.tmpdir")));
+        Files.createDirectories(directory);
+
+        try (MeasurementArchive archive = new MeasurementArchive(directory.toString())) {
+            run("mapped", new MappedMeasurementStore(archive), readings);
+        }
+
+        // Many sensors with a day of hourly readings share the segments of one archive
+        int sensors = Harness.argument(args, "sensors", 50_000);
+        try (MeasurementArchive archive = new MeasurementArchive(directory.toString())) {
+            MeasurementStore[] stores = new MeasurementStore[sensors];
+            for (int i = 0; i < sensors; i++) {
+                stores[i] = new MappedMeasurementStore(archive);
+                for (int hour = 0; hour < 24; hour++) {
+                    stores[i].add(hour * 60L, hour);
+                }
+            }
+            System.out.printf("mapped %,12d sensors: %,8d KiB allocated in %d segments%n", sensors,
+                    archive.getAllocatedBytes() / 1024,
+                    (archive.getAllocatedBytes() + MeasurementArchive.SEGMENT_BYTES - 1) / MeasurementArchive.SEGMENT_BYTES);
+            Harness.consume(stores);
+        }
+        try {
+            run("heap", new HeapMeasurementStore(), readings);
+        } catch (OutOfMemoryError e) {
+            System.out.printf("heap   %,12d readings: OutOfMemoryError%n", readings);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package Benchmarks;
+
+import Core.City;
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import Core.Sensor;
+import Quickchart.ChartType;
+import Quickchart.QuickChart;
+import SensorDataInput.JsonImporter;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.interfaces.IStatistics;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Baseline of the hot paths over a {@link SyntheticCity}
+ *
+ * @apiNote Arguments are optional key=value pairs: stations, sensors (per station), readings (per sensor),
+ * warmup and iterations. Example: {@code java Benchmarks.BenchmarkSuite stations=500 sensors=8 readings=8760}
+ */
+public class BenchmarkSuite {
+    private static final int QUERIES_PER_ITERATION = 100;
+
+    public static void main(String[] args) throws Exception {
+        int stations = Harness.argument(args, "stations", 50);
+        int sensors = Harness.argument(args, "sensors", 8);
+        int readings = Harness.argument(args, "readings", 2_000);
+        Harness harness = Harness.fromArguments(args, 3, 5);
+
+        SyntheticCity synthetic = new SyntheticCity(stations, sensors, readings);
+        System.out.printf("City: %d stations x %d sensors x %d readings = %,d readings%n%n",
+                stations, sensors, readings, synthetic.size());
+
+        // Importation
+        File json = File.createTempFile("benchmark-city", ".json");
+        json.deleteOnExit();
+        synthetic.writeJson(json);
+        harness.measure("JsonImporter.importData (per record)", () -> {
+            City city = new City("Import");
+            Harness.consume(new JsonImporter().importData(city, json.getPath()));
+            return synthetic.size();
+        });
+        harness.measure("JsonImporter.importData streaming (per record)", () -> {
+            City city = new City("Import");
+            Harness.consume(new JsonImporter(true).importData(city, json.getPath()));
+            return synthetic.size();
+        });
+
+        // Insertion
+        harness.measure("Sensor.addMeasurement (per reading)", () -> {
+            Sensor sensor = new Sensor("QA0NO20001", new CartesianCoordinates(0, 0, 0), new GeographicCoordinates(0, 0));
+            String unit = Unit.getUnitString(Parameter.NO2.getUnit());
+            for (int i = 0; i < readings; i++) {
+                sensor.addMeasurement(i % 100, SyntheticCity.START.plusHours(i), unit);
+            }
+            Harness.consume(sensor);
+            return readings;
+        });
+
+        // Statistics
+        City city = synthetic.fill(new City("Statistics"));
+        String station = SyntheticCity.stationName(0);
+        LocalDateTime end = SyntheticCity.START.plusHours(readings);
+        LocalDateTime[][] windows = {
+                {end.minusHours(25), end},
+                {SyntheticCity.START.plusHours(readings / 4), SyntheticCity.START.plusHours(readings * 3L / 4)}
+        };
+        String[] windowNames = {"last 24h", "middle half"};
+
+        for (AggregationOperator operator : AggregationOperator.values()) {
+            harness.measure("City.getMeasurementsByStation " + operator, () -> {
+                for (int i = 0; i < QUERIES_PER_ITERATION; i++) {
+                    Harness.consume(city.getMeasurementsByStation(operator, Parameter.NO2));
+                }
+                return QUERIES_PER_ITERATION;
+            });
+            harness.measure("City.getMeasurementsBySensor " + operator, () -> {
+                for (int i = 0; i < QUERIES_PER_ITERATION; i++) {
+                    Harness.consume(city.getMeasurementsBySensor(station, operator, Parameter.NO2));
+                }
+                return QUERIES_PER_ITERATION;
+            });
+
+            for (int w = 0; w < windows.length; w++) {
+                LocalDateTime[] window = windows[w];
+                harness.measure("City.getMeasurementsByStation " + operator + " " + windowNames[w], () -> {
+                    for (int i = 0; i < QUERIES_PER_ITERATION; i++) {
+                        Harness.consume(city.getMeasurementsByStation(operator, Parameter.NO2, window[0], window[1]));
+                    }
+                    return QUERIES_PER_ITERATION;
+                });
+                harness.measure("City.getMeasurementsBySensor " + operator + " " + windowNames[w], () -> {
+                    for (int i = 0; i < QUERIES_PER_ITERATION; i++) {
+                        Harness.consume(city.getMeasurementsBySensor(station, operator, Parameter.NO2, window[0], window[1]));
+                    }
+                    return QUERIES_PER_ITERATION;
+                });
+            }
+        }
+
+        // Exportation
+        File chartDirectory = Files.createTempDirectory("benchmark-chart").toFile();
+        chartDirectory.deleteOnExit();
+        IStatistics[] statistics = city.getMeasurementsByStation(AggregationOperator.AVG, Parameter.NO2);
+        QuickChart quickChart = new QuickChart();
+        quickChart.setOutputPath(chartDirectory.getPath() + File.separator);
+        quickChart.setChartConfiguration("Benchmark", Parameter.NO2, statistics, ChartType.BAR);
+        harness.measure("QuickChart.export", () -> {
+            for (int i = 0; i < QUERIES_PER_ITERATION; i++) {
+                Harness.consume(quickChart.export());
+            }
+            return QUERIES_PER_ITERATION;
+        });
+        new File(chartDirectory, "Benchmark.json").deleteOnExit();
+    }
+}
@@ -0,0 +1,223 @@
+package Benchmarks;
+
+import Core.City;
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import Core.MeasurementBatch;
+import Core.WriteAheadLog;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.interfaces.IStatistics;
+
+import java.io.File;
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Compares {@link City#addMeasurement} row by row with {@link City#addMeasurements(MeasurementBatch)}
+ *
+ * @apiNote Arguments are optional key=value pairs: stations, sensors (per station), readings (per sensor),
+ * warmup and iterations. Rows are fed grouped by sensor, as in a per-sensor export,
+ * and interleaved by time, as in a live feed where every group has a single row.
+ * The number of added rows and the resulting cities of both paths are checked to be the same.
+ * Both paths are also measured with a {@link WriteAheadLog} that syncs every batch size records.
+ */
+public class BulkInsertBenchmark {
+
+    /**
+     * Build a city with stations and sensors but no readings
+     *
+     * @param stations The number of stations
+     * @param sensors  The number of sensors of each station
+     * @return Returns the empty {@link City}
+     */
+    private static City emptyCity(int stations, int sensors) throws Exception {
+        City city = new City("Bulk");
+        for (int station = 0; station < stations; station++) {
+            city.addStation(SyntheticCity.stationName(station));
+            for (int sensor = 0; sensor < sensors; sensor++) {
+                city.addSensor(SyntheticCity.stationName(station), SyntheticCity.sensorId(sensor),
+                        new CartesianCoordinates(station, sensor, 0), new GeographicCoordinates(38.7, -9.1));
+            }
+        }
+        return city;
+    }
+
+    /**
+     * Build the rows of the city, with a few invalid and duplicate ones
+     *
+     * @param stations The number of stations
+     * @param sensors  The number of sensors of each station
+     * @param readings The number of readings of each sensor
+     * @param bySensor True to group the rows by sensor, false to interleave them by time
+     * @return Returns the {@link MeasurementBatch batch}
+     */
+    private static MeasurementBatch rows(int stations, int sensors, int readings, boolean bySensor) {
+        MeasurementBatch batch = new MeasurementBatch(stations * sensors * readings);
+        String[] stationNames = new String[stations];
+        for (int station = 0; station < stations; station++) {
+            stationNames[station] = SyntheticCity.stationName(station);
+        }
+        String[] sensorIds = new String[sensors];
+        String[] units = new String[sensors];
+        for (int sensor = 0; sensor < sensors; sensor++) {
+            sensorIds[sensor] = SyntheticCity.sensorId(sensor);
+            units[sensor] = Unit.getUnitString(SyntheticCity.parameterOf(sensor).getUnit());
+        }
+
+        int outer = bySensor ? stations * sensors : readings;
+        int inner = bySensor ? readings : stations * sensors;
+        for (int i = 0; i < outer; i++) {
+            for (int j = 0; j < inner; j++) {
+                int reading = bySensor ? j : i;
+                int station = (bySensor ? i : j) / sensors;
+                int sensor = (bySensor ? i : j) % sensors;
+                LocalDateTime time = SyntheticCity.START.plusHours(reading);
+                double value = SyntheticCity.valueOf(station, sensor, reading);
+
+                // Every 1000th reading repeats the previous one, every 997th is the -99 of a failed read
+                if (reading % 1000 == 999) {
+                    time = time.minusHours(1);
+                    value = SyntheticCity.valueOf(station, sensor, reading - 1);
+                }
+                if (reading % 997 == 996) value = -99;
+                batch.add(stationNames[station], sensorIds[sensor], value, units[sensor], time);
+            }
+        }
+        batch.add("Unknown", sensorIds[0], 1, units[0], SyntheticCity.START);
+        batch.add(stationNames[0], "QA0NO29999", 1, units[0], SyntheticCity.START);
+        batch.add(stationNames[0], sensorIds[0], 1, "K", SyntheticCity.START);
+        batch.add(stationNames[0], sensorIds[0], 1, units[0], (LocalDateTime) null);
+        return batch;
+    }
+
+    /**
+     * Add the rows one by one, rejected rows throw and are counted as not added
+     *
+     * @param city  The {@link City city}
+     * @param batch The {@link MeasurementBatch batch} with the rows
+     * @return Returns the number of added readings
+     */
+    private static int addOneByOne(City city, MeasurementBatch batch) {
+        int added = 0;
+        for (int row = 0; row < batch.size(); row++) {
+            long minute = batch.getEpochMinute(row);
+            LocalDateTime time = minute == MeasurementBatch.NO_TIME ? null
+                    : LocalDateTime.of(1970, 1, 1, 0, 0).plusMinutes(minute);
+            try {
+                if (city.addMeasurement(batch.getStationName(row), batch.getSensorId(row), batch.getValue(row),
+                        batch.getUnit(row), time)) {
+                    added++;
+                }
+            } catch (Exception e) {
+                // Rejected rows only count as not added
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Count the added statuses
+     *
+     * @param status The statuses of a batch
+     * @return Returns the number of {@link MeasurementBatch.Status#ADDED} rows
+     */
+    private static int countAdded(MeasurementBatch.Status[] status) {
+        int added = 0;
+        for (MeasurementBatch.Status each : status) {
+            if (each == MeasurementBatch.Status.ADDED) added++;
+        }
+        return added;
+    }
+
+    /**
+     * Open an empty {@link WriteAheadLog} in a temporary file
+     *
+     * @return Returns the {@link WriteAheadLog log}
+     */
+    private static WriteAheadLog newLog() throws Exception {
+        File log = File.createTempFile("bulk-insert", ".log");
+        log.deleteOnExit();
+        return new WriteAheadLog(log.getPath(), WriteAheadLog.Durability.BATCH);
+    }
+
+    /**
+     * Check that two cities have the same statistics
+     *
+     * @param expected The {@link City city} filled row by row
+     * @param actual   The {@link City city} filled in bulk
+     */
+    private static void check(City expected, City actual) {
+        for (AggregationOperator operator : AggregationOperator.values()) {
+            for (Parameter parameter : new Parameter[]{Parameter.NO2, Parameter.O3, Parameter.TEMP}) {
+                IStatistics[] e = expected.getMeasurementsByStation(operator, parameter);
+                IStatistics[] a = actual.getMeasurementsByStation(operator, parameter);
+                for (int i = 0; i < e.length; i++) {
+                    if (e[i] == null ? a[i] != null : a[i] == null || Double.compare(e[i].getValue(), a[i].getValue()) != 0) {
+                        throw new IllegalStateException(operator + " " + parameter + " differs at " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int stations = Harness.argument(args, "stations", 50);
+        int sensors = Harness.argument(args, "sensors", 8);
+        int readings = Harness.argument(args, "readings", 2_000);
+        Harness harness = Harness.fromArguments(args, 2, 3);
+
+        for (boolean bySensor : new boolean[]{true, false}) {
+            String order = bySensor ? "grouped by sensor" : "interleaved by time";
+            MeasurementBatch batch = rows(stations, sensors, readings, bySensor);
+
+            City oneByOne = emptyCity(stations, sensors);
+            City bulk = emptyCity(stations, sensors);
+            MeasurementBatch.Status[] status = bulk.addMeasurements(batch);
+            int added = addOneByOne(oneByOne, batch);
+            if (added != countAdded(status)) {
+                throw new IllegalStateException(order + ": " + added + " added one by one, " + countAdded(status) + " in bulk");
+            }
+            check(oneByOne, bulk);
+            int n = status.length;
+            System.out.printf("%s: %,d rows, %,d added, last rows %s %s %s %s%n", order, n, added,
+                    status[n - 4], status[n - 3], status[n - 2], status[n - 1]);
+
+            harness.measure("City.addMeasurement " + order + " (per row)", () -> {
+                Harness.consume(addOneByOne(emptyCity(stations, sensors), batch));
+                return batch.size();
+            });
+            harness.measure("City.addMeasurements " + order + " (per row)", () -> {
+                Harness.consume(emptyCity(stations, sensors).addMeasurements(batch));
+                return batch.size();
+            });
+            harness.measure("City.addMeasurement with a log " + order + " (per row)", () -> {
+                try (WriteAheadLog writeAheadLog = newLog()) {
+                    City city = emptyCity(stations, sensors);
+                    city.setWriteAheadLog(writeAheadLog);
+                    Harness.consume(addOneByOne(city, batch));
+                }
+                return batch.size();
+            });
+            harness.measure("City.addMeasurements with a log " + order + " (per row)", () -> {
+                try (WriteAheadLog writeAheadLog = newLog()) {
+                    City city = emptyCity(stations, sensors);
+                    city.setWriteAheadLog(writeAheadLog);
+                    Harness.consume(city.addMeasurements(batch));
+                }
+                return batch.size();
+            });
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package Benchmarks;
+
+import Core.ConcurrentCity;
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.interfaces.IStatistics;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Stresses a {@link ConcurrentCity} with concurrent writers and dashboard readers
+ *
+ * @apiNote Every run checks that no reading was lost and that readers never saw a count going backwards,
+ * then prints the insert throughput for the number of writer threads
+ */
+public class ConcurrentCityBenchmark {
+    private static final int STATIONS = 256;
+    private static final int READINGS_PER_WRITER = 500_000;
+    private static final int READERS = 2;
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+    /**
+     * Count every reading of the city through the statistics
+     *
+     * @param city The {@link ConcurrentCity city}
+     * @return Returns the number of readings
+     */
+    private static long countReadings(ConcurrentCity city) {
+        long count = 0;
+        for (IStatistics statistic : city.getMeasurementsByStation(AggregationOperator.COUNT, Parameter.NO2)) {
+            if (statistic != null) count += (long) statistic.getValue();
+        }
+        return count;
+    }
+
+    /**
+     * Run writers and readers against a new {@link ConcurrentCity}
+     *
+     * @param writers The number of writer threads
+     * @return Returns the elapsed time of the writers in nanoseconds
+     */
+    private static long run(int writers) throws Exception {
+        ConcurrentCity city = new ConcurrentCity("Benchmark");
+        for (int i = 0; i < STATIONS; i++) {
+            city.addStation("Station " + i);
+            city.addSensor("Station " + i, "QA0NO20001", new CartesianCoordinates(0, 0, 0), new GeographicCoordinates(0, 0));
+        }
+        String unit = Unit.getUnitString(Parameter.NO2.getUnit());
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong failures = new AtomicLong();
+
+        Thread[] readerThreads = new Thread[READERS];
+        for (int r = 0; r < READERS; r++) {
+            readerThreads[r] = new Thread(() -> {
+                long last = 0;
+                while (writing.get()) {
+                    long count = countReadings(city);
+                    if (count < last) failures.incrementAndGet();
+                    last = count;
+                }
+            });
+            readerThreads[r].start();
+        }
+
+        Thread[] writerThreads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            writerThreads[w] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < READINGS_PER_WRITER; i++) {
+                        // Each writer owns its own minutes, so no reading is a duplicate of another
+                        city.addMeasurement("Station " + (i % STATIONS), "QA0NO20001", i % 100, unit,
+                                START.plusMinutes((long) i * writers + writer));
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : writerThreads) thread.start();
+        for (Thread thread : writerThreads) thread.join();
+        long elapsed = System.nanoTime() - start;
+
+        writing.set(false);
+        for (Thread thread : readerThreads) thread.join();
+
+        long expected = (long) writers * READINGS_PER_WRITER;
+        if (failures.get() > 0 || countReadings(city) != expected) {
+            throw new IllegalStateException("Lost readings or inconsistent reads with " + writers + " writers");
+        }
+
+        return elapsed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Warm up the insert and query paths before measuring
+        run(2);
+
+        for (int writers = 1; writers <= Math.max(4, Runtime.getRuntime().availableProcessors()); writers *= 2) {
+            long elapsed = run(writers);
+            System.out.printf("%3d writers: %,12.0f inserts/s%n", writers, (double) writers * READINGS_PER_WRITER / (elapsed / 1e9));
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package Benchmarks;
+
+import Core.City;
+import Core.ConcurrentCity;
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import Core.Measurement;
+import Core.MeasurementBatch;
+import Core.StatisticsQuery;
+import Core.StatisticsTable;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.interfaces.IStatistics;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Checks that a {@link ConcurrentCity} written by several threads, while others query it,
+ * ends up equal to a {@link City} given the same readings by a single thread
+ *
+ * @apiNote Arguments are optional key=value pairs: writers, readers, stations, stripes and readings (per writer).
+ * There are fewer stripes than stations, so stations share locks. Writers use single and bulk inserts,
+ * half of them add their readings in reverse order and every writer also adds duplicates, which must be refused.
+ * Readers check that counts never go backwards and that minimums, maximums and medians stay within the values written.
+ * The medians come from a windowed query that copies the readings of each snapshot, so a snapshot that changed
+ * while it was read would show up as a count that doesn't match the copied readings.
+ * Exits with status 1 and the list of failures when any check fails.
+ */
+public class ConcurrentCityCheck {
+    private static final String SENSOR_ID = "QA0NO20001";
+    private static final String UNIT = Unit.getUnitString(Parameter.NO2.getUnit());
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private static final int MAX_VALUE = 100;
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * Add the stations and their sensor to a city
+     *
+     * @param city     The {@link City city}
+     * @param stations The number of stations
+     */
+    private static void addStations(City city, int stations) throws Exception {
+        for (int i = 0; i < stations; i++) {
+            city.addStation("Station " + i);
+            city.addSensor("Station " + i, SENSOR_ID, new CartesianCoordinates(0, 0, i), new GeographicCoordinates(0, 0));
+        }
+    }
+
+    /**
+     * Get the reading of a writer at a step, readings of different writers never have the same minute
+     *
+     * @param writer   The writer
+     * @param writers  The number of writers
+     * @param step     The step of the writer
+     * @param stations The number of stations
+     * @return Returns the station, the minute and the value of the reading
+     */
+    private static long[] reading(int writer, int writers, int step, int stations) {
+        return new long[]{(step * 7L + writer) % stations, (long) step * writers + writer, (step * 31L + writer) % MAX_VALUE};
+    }
+
+    /**
+     * Add every reading of a writer
+     *
+     * @param city     The {@link City city}
+     * @param writer   The writer
+     * @param writers  The number of writers
+     * @param readings The number of readings of the writer
+     * @param stations The number of stations
+     * @param failures The failures found
+     */
+    private static void write(City city, int writer, int writers, int readings, int stations,
+                              ConcurrentLinkedQueue<String> failures) throws Exception {
+        MeasurementBatch batch = new MeasurementBatch(BATCH_SIZE);
+        boolean reverse = writer % 2 == 1;
+
+        for (int i = 0; i < readings; i++) {
+            int step = reverse ? readings - 1 - i : i;
+            long[] reading = reading(writer, writers, step, stations);
+            String stationName = "Station " + reading[0];
+            long minute = Measurement.toEpochMinute(START) + reading[1];
+
+            if (step % 2 == 0) {
+                if (!city.addMeasurement(stationName, SENSOR_ID, reading[2], UNIT, START.plusMinutes(reading[1]))) {
+                    failures.add("Writer " + writer + ": reading " + step + " refused");
+                }
+                // The same reading again must be a duplicate
+                if (step % 10 == 0 && city.addMeasurement(stationName, SENSOR_ID, reading[2], UNIT, START.plusMinutes(reading[1]))) {
+                    failures.add("Writer " + writer + ": duplicate of reading " + step + " added");
+                }
+            } else {
+                batch.add(stationName, SENSOR_ID, reading[2], UNIT, minute);
+                if (batch.size() == BATCH_SIZE) {
+                    addBatch(city, batch, writer, failures);
+                }
+            }
+        }
+        addBatch(city, batch, writer, failures);
+    }
+
+    /**
+     * Add a batch of new readings and clear it
+     *
+     * @param city     The {@link City city}
+     * @param batch    The {@link MeasurementBatch batch}
+     * @param writer   The writer
+     * @param failures The failures found
+     */
+    private static void addBatch(City city, MeasurementBatch batch, int writer, ConcurrentLinkedQueue<String> failures)
+            throws Exception {
+        MeasurementBatch.Status[] status = city.addMeasurements(batch);
+        for (int row = 0; row < status.length; row++) {
+            if (status[row] != MeasurementBatch.Status.ADDED) {
+                failures.add("Writer " + writer + ": batch row " + row + " " + status[row]);
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Query the city while it's written
+     *
+     * @param city     The {@link ConcurrentCity city}
+     * @param writing  Cleared when the writers are done
+     * @param failures The failures found
+     */
+    private static void read(ConcurrentCity city, AtomicBoolean writing, ConcurrentLinkedQueue<String> failures) {
+        StatisticsQuery query = new StatisticsQuery(StatisticsQuery.Operator.COUNT, StatisticsQuery.Operator.MEDIAN);
+        query.setParameter(Parameter.NO2);
+        query.setWindow(START.minusMinutes(1), START.plusYears(1));
+
+        long last = 0;
+        do {
+            long count = 0;
+            for (IStatistics statistic : city.getMeasurementsByStation(AggregationOperator.COUNT, Parameter.NO2)) {
+                if (statistic != null) count += (long) statistic.getValue();
+            }
+            if (count < last) {
+                failures.add("Count went back from " + last + " to " + count);
+            }
+            last = count;
+
+            for (AggregationOperator operator : new AggregationOperator[]{AggregationOperator.MIN, AggregationOperator.MAX}) {
+                for (IStatistics statistic : city.getMeasurementsByStation(operator, Parameter.NO2)) {
+                    if (statistic != null && (statistic.getValue() < 0 || statistic.getValue() >= MAX_VALUE)) {
+                        failures.add(operator + " out of the values written: " + statistic);
+                    }
+                }
+            }
+
+            try {
+                StatisticsTable table = city.query(query);
+                for (int row = 0; row < table.getNumRows(); row++) {
+                    double median = table.getValue(row, StatisticsQuery.Operator.MEDIAN);
+                    if (median < 0 || median >= MAX_VALUE) {
+                        failures.add("Median out of the values written: " + table.getStation(row) + " " + median);
+                    }
+                }
+            } catch (RuntimeException e) {
+                failures.add("Query failed: " + e);
+            }
+        } while (writing.get());
+    }
+
+    /**
+     * Compare every station statistic of both cities
+     *
+     * @param expected The {@link City city} written by a single thread
+     * @param actual   The {@link ConcurrentCity city} written concurrently
+     * @param failures The failures found
+     */
+    private static void compare(City expected, ConcurrentCity actual, ConcurrentLinkedQueue<String> failures) {
+        for (AggregationOperator operator : AggregationOperator.values()) {
+            IStatistics[] expectedStatistics = expected.getMeasurementsByStation(operator, Parameter.NO2);
+            IStatistics[] actualStatistics = actual.getMeasurementsByStation(operator, Parameter.NO2);
+            if (expectedStatistics.length != actualStatistics.length) {
+                failures.add(operator + ": " + expectedStatistics.length + " != " + actualStatistics.length + " stations");
+                continue;
+            }
+            for (int i = 0; i < expectedStatistics.length; i++) {
+                if (expectedStatistics[i] == null && actualStatistics[i] == null) continue;
+
+                // Every value is an integer, so sums don't depend on the order of the readings
+                if (expectedStatistics[i] == null || actualStatistics[i] == null
+                        || !expectedStatistics[i].getDescription().equals(actualStatistics[i].getDescription())
+                        || Double.compare(expectedStatistics[i].getValue(), actualStatistics[i].getValue()) != 0) {
+                    failures.add(operator + ": " + expectedStatistics[i] + " != " + actualStatistics[i]);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int writers = Harness.argument(args, "writers", 4);
+        int readers = Harness.argument(args, "readers", 2);
+        int stations = Harness.argument(args, "stations", 48);
+        int readings = Harness.argument(args, "readings", 50_000);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+
+        ConcurrentCity city = new ConcurrentCity("Concurrent", Harness.argument(args, "stripes", 8));
+        addStations(city, stations);
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread[] readerThreads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            readerThreads[r] = new Thread(() -> read(city, writing, failures));
+            readerThreads[r].start();
+        }
+
+        Thread[] writerThreads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            writerThreads[w] = new Thread(() -> {
+                try {
+                    write(city, writer, writers, readings, stations, failures);
+                } catch (Exception e) {
+                    failures.add("Writer " + writer + ": " + e);
+                }
+            });
+            writerThreads[w].start();
+        }
+        for (Thread thread : writerThreads) thread.join();
+        writing.set(false);
+        for (Thread thread : readerThreads) thread.join();
+
+        City expected = new City("Sequential");
+        addStations(expected, stations);
+        ConcurrentLinkedQueue<String> sequentialFailures = new ConcurrentLinkedQueue<>();
+        for (int w = 0; w < writers; w++) {
+            write(expected, w, writers, readings, stations, sequentialFailures);
+        }
+        failures.addAll(sequentialFailures);
+        compare(expected, city, failures);
+
+        if (!failures.isEmpty()) {
+            int shown = 0;
+            for (String failure : failures) {
+                if (shown++ == 20) break;
+                System.err.println(failure);
+            }
+            System.err.printf("Concurrent check FAILED, %,d failures%n", failures.size());
+            System.exit(1);
+        }
+        System.out.printf("Concurrent check OK, %d writers, %d readers, %,d readings%n",
+                writers, readers, (long) writers * readings);
+    }
+}
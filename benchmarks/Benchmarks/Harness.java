@@ -0,0 +1,135 @@
+package Benchmarks;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Minimal benchmark harness: warm-up iterations, measured iterations and a sink against dead code elimination
+ *
+ * @apiNote Results are printed as one line per benchmark with the mean time per operation and the throughput.
+ * Benchmarks read their arguments, optional key=value pairs, with {@link #argument(String[], String, int)}
+ * and its overloads.
+ */
+public class Harness {
+
+    /**
+     * A measured piece of work
+     */
+    public interface Task {
+        /**
+         * Run the work once
+         *
+         * @return Returns the number of operations done, used to compute the time per operation
+         */
+        long run() throws Exception;
+    }
+
+    private static volatile Object sink;
+
+    private final int warmUpIterations;
+    private final int measuredIterations;
+
+    /**
+     * Constructor for {@link Harness}
+     *
+     * @param warmUpIterations   The number of iterations run before measuring
+     * @param measuredIterations The number of measured iterations
+     */
+    public Harness(int warmUpIterations, int measuredIterations) {
+        this.warmUpIterations = warmUpIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    /**
+     * Create a harness with the iterations given by the "warmup" and "iterations" arguments
+     *
+     * @param args               The program arguments
+     * @param warmUpIterations   The number of iterations run before measuring, when the argument is missing
+     * @param measuredIterations The number of measured iterations, when the argument is missing
+     * @return Returns the {@link Harness harness}
+     */
+    public static Harness fromArguments(String[] args, int warmUpIterations, int measuredIterations) {
+        return new Harness(argument(args, "warmup", warmUpIterations), argument(args, "iterations", measuredIterations));
+    }
+
+    /**
+     * Read a key=value argument
+     *
+     * @param args         The program arguments
+     * @param key          The key of the argument
+     * @param defaultValue The value used when the argument is missing
+     * @return Returns the value of the argument
+     */
+    public static String argument(String[] args, String key, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(key + "=")) {
+                return arg.substring(key.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Read an integer key=value argument
+     *
+     * @param args         The program arguments
+     * @param key          The key of the argument
+     * @param defaultValue The value used when the argument is missing
+     * @return Returns the value of the argument
+     */
+    public static int argument(String[] args, String key, int defaultValue) {
+        String value = argument(args, key, (String) null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Read a decimal key=value argument
+     *
+     * @param args         The program arguments
+     * @param key          The key of the argument
+     * @param defaultValue The value used when the argument is missing
+     * @return Returns the value of the argument
+     */
+    public static double argument(String[] args, String key, double defaultValue) {
+        String value = argument(args, key, (String) null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * Keep a result alive so the JIT can't remove the work that produced it
+     *
+     * @param result The result to consume
+     */
+    public static void consume(Object result) {
+        sink = result;
+    }
+
+    /**
+     * Warm up, measure and print a {@link Task}
+     *
+     * @param name The name printed with the result
+     * @param task The {@link Task task} to measure
+     */
+    public void measure(String name, Task task) throws Exception {
+        for (int i = 0; i < warmUpIterations; i++) {
+            task.run();
+        }
+
+        long operations = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            operations += task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-60s %14.1f ns/op %16.0f ops/s%n",
+                name, elapsed / (double) operations, operations / (elapsed / 1e9));
+    }
+}
@@ -0,0 +1,85 @@
+package Benchmarks;
+
+import Core.City;
+import SensorDataInput.JsonImporter;
+import edu.ma02.core.exceptions.CityException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Measures the ingest throughput of {@link JsonImporter#importData} as the number of stations grows
+ *
+ * @apiNote The number of records is the same for every run, only the number of stations changes
+ */
+public class ImportBenchmark {
+    private static final int[] STATION_COUNTS = {10, 100, 1_000, 10_000, 100_000};
+    private static final int RECORDS = 200_000;
+
+    /**
+     * Write a JSON file with {@link #RECORDS} readings spread over a number of stations
+     *
+     * @param stations The number of stations
+     * @return Returns the written {@link File}
+     */
+    private static File writeRecords(int stations) throws IOException {
+        File file = File.createTempFile("import-benchmark", ".json");
+        file.deleteOnExit();
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+        LocalDateTime start = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write("[");
+            for (int i = 0; i < RECORDS; i++) {
+                if (i > 0) writer.write(",");
+                writer.write("{\"id\":\"QA0NO20001\",\"date\":\"" + start.plusHours(i / stations).format(formatter) +
+                        "\",\"value\":" + (i % 97) + ",\"unit\":\"µg/m3\",\"address\":\"Station " + (i % stations) +
+                        "\",\"coordinates\":{\"x\":0,\"y\":0,\"z\":0,\"lat\":0,\"lng\":0}}");
+            }
+            writer.write("]");
+        }
+
+        return file;
+    }
+
+    /**
+     * Import a file into a new {@link City}
+     *
+     * @param file The {@link File file} to import
+     * @return Returns the elapsed time in nanoseconds
+     */
+    private static long importFile(File file) throws IOException, CityException {
+        City city = new City("Benchmark");
+        JsonImporter importer = new JsonImporter();
+
+        long start = System.nanoTime();
+        importer.importData(city, file.getPath());
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws IOException, CityException {
+        // Warm up the import path before measuring
+        File warmUp = writeRecords(STATION_COUNTS[0]);
+        for (int i = 0; i < 3; i++) {
+            importFile(warmUp);
+        }
+
+        for (int stations : STATION_COUNTS) {
+            long elapsed = importFile(writeRecords(stations));
+            System.out.printf("%,8d stations: %,10.0f records/s%n", stations, RECORDS / (elapsed / 1e9));
+        }
+    }
+}
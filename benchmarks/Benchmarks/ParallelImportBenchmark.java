@@ -0,0 +1,141 @@
+package Benchmarks;
+
+import Core.City;
+import SensorDataInput.JsonImporter;
+import edu.ma02.core.enumerations.Unit;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Measures how {@link JsonImporter#importData(edu.ma02.core.interfaces.ICity, String[], int)} scales
+ * with the number of worker threads, against importing the files one by one
+ *
+ * @apiNote Arguments are optional key=value pairs: files, stations (per file), sensors (per station),
+ * readings (per sensor), warmup and iterations. Every file has its own stations.
+ * Only parsing runs on the workers, the records are added by the calling thread,
+ * so the speedup is bounded by the share of the time spent parsing, which is also printed.
+ * The number of readings of every run is checked to be the same.
+ */
+public class ParallelImportBenchmark {
+    private static final int[] THREADS = {1, 2, 4};
+
+    /**
+     * Write the readings of the stations of a file
+     *
+     * @param file     The number of the file
+     * @param stations The number of stations of the file
+     * @param sensors  The number of sensors of each station
+     * @param readings The number of readings of each sensor
+     * @return Returns the path of the written file
+     */
+    private static String writeFile(int file, int stations, int sensors, int readings) throws IOException {
+        File path = File.createTempFile("parallel-import-" + file + "-", ".json");
+        path.deleteOnExit();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8))) {
+            writer.write("[");
+            boolean first = true;
+            for (int reading = 0; reading < readings; reading++) {
+                String date = SyntheticCity.START.plusHours(reading).format(formatter);
+                for (int station = 0; station < stations; station++) {
+                    for (int sensor = 0; sensor < sensors; sensor++) {
+                        if (!first) writer.write(",");
+                        first = false;
+                        writer.write("{\"id\":\"" + SyntheticCity.sensorId(sensor) + "\",\"date\":\"" + date +
+                                "\",\"value\":" + SyntheticCity.valueOf(station, sensor, reading) +
+                                ",\"unit\":\"" + Unit.getUnitString(SyntheticCity.parameterOf(sensor).getUnit()) +
+                                "\",\"address\":\"File " + file + " " + SyntheticCity.stationName(station) +
+                                "\",\"coordinates\":{\"x\":" + station + ",\"y\":" + sensor + ",\"z\":0,\"lat\":38.7,\"lng\":-9.1}}");
+                    }
+                }
+            }
+            writer.write("]");
+        }
+        return path.getPath();
+    }
+
+    /**
+     * Count the readings of a city
+     *
+     * @param city The {@link City city}
+     * @return Returns the number of readings of every sensor of every station
+     */
+    private static long countReadings(City city) {
+        long readings = 0;
+        for (var station : city.getStations()) {
+            for (var sensor : station.getSensors()) {
+                readings += sensor.getNumMeasurements();
+            }
+        }
+        return readings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int files = Harness.argument(args, "files", 8);
+        int stations = Harness.argument(args, "stations", 10);
+        int sensors = Harness.argument(args, "sensors", 8);
+        int readings = Harness.argument(args, "readings", 500);
+        Harness harness = Harness.fromArguments(args, 2, 3);
+
+        String[] paths = new String[files];
+        for (int file = 0; file < files; file++) {
+            paths[file] = writeFile(file, stations, sensors, readings);
+        }
+        long expected = (long) files * stations * sensors * readings;
+        int records = (int) expected;
+        System.out.printf("%d processors, %d files, %,d records%n%n", Runtime.getRuntime().availableProcessors(),
+                files, records);
+
+        City check = new City("Check");
+        new JsonImporter().importData(check, paths, 1);
+        if (countReadings(check) != expected) {
+            throw new IllegalStateException(countReadings(check) + " readings imported, " + expected + " expected");
+        }
+
+        harness.measure("importData file by file (per record)", () -> {
+            City city = new City("Sequential");
+            JsonImporter importer = new JsonImporter();
+            for (String path : paths) {
+                importer.importData(city, path);
+            }
+            Harness.consume(city);
+            return records;
+        });
+
+        // The same records already in the city are parsed and rejected as duplicates,
+        // which leaves mostly the parsing and lookups: the part that runs on the workers
+        City full = new City("Parse");
+        new JsonImporter().importData(full, paths, 1);
+        harness.measure("importData file by file into a full city (per record)", () -> {
+            JsonImporter importer = new JsonImporter();
+            for (String path : paths) {
+                importer.importData(full, path);
+            }
+            return records;
+        });
+
+        for (int threads : THREADS) {
+            harness.measure("importData with " + threads + " worker(s) (per record)", () -> {
+                City city = new City("Parallel");
+                new JsonImporter().importData(city, paths, threads);
+                if (countReadings(city) != expected) {
+                    throw new IllegalStateException(threads + " workers imported a different city");
+                }
+                return records;
+            });
+        }
+    }
+}
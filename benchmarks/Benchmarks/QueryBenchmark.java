@@ -0,0 +1,106 @@
+package Benchmarks;
+
+import Core.City;
+import Core.StatisticsQuery;
+import Core.StatisticsTable;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.interfaces.IStatistics;
+
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Compares a dashboard made of one {@link City#getMeasurementsByStation} call per operator
+ * with a single {@link City#query(StatisticsQuery)}
+ *
+ * @apiNote Arguments are optional key=value pairs: stations, sensors (per station), readings (per sensor),
+ * warmup and iterations. The query is first checked against the separate calls.
+ */
+public class QueryBenchmark {
+    private static final int QUERIES_PER_ITERATION = 20;
+    private static final AggregationOperator[] DASHBOARD = AggregationOperator.values();
+
+    /**
+     * Check that a column of a {@link StatisticsTable} has the statistics of the separate call
+     *
+     * @param table    The {@link StatisticsTable table} of the query
+     * @param operator The {@link AggregationOperator operator} of the column
+     * @param expected The result of the separate call
+     */
+    private static void check(StatisticsTable table, AggregationOperator operator, IStatistics[] expected) {
+        IStatistics[] actual = table.getStatistics(StatisticsQuery.Operator.of(operator));
+        int count = 0;
+        for (IStatistics statistic : expected) {
+            if (statistic == null) continue;
+            if (count >= actual.length || !statistic.getDescription().equals(actual[count].getDescription())
+                    || Double.compare(statistic.getValue(), actual[count].getValue()) != 0) {
+                throw new IllegalStateException(operator + " differs at row " + count);
+            }
+            count++;
+        }
+        if (count != actual.length) {
+            throw new IllegalStateException(operator + " has " + actual.length + " rows instead of " + count);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int stations = Harness.argument(args, "stations", 200);
+        int sensors = Harness.argument(args, "sensors", 8);
+        int readings = Harness.argument(args, "readings", 2_000);
+        Harness harness = Harness.fromArguments(args, 3, 5);
+
+        City city = new SyntheticCity(stations, sensors, readings).fill(new City("Query"));
+        LocalDateTime from = SyntheticCity.START.plusHours(readings / 4).plusMinutes(30);
+        LocalDateTime to = SyntheticCity.START.plusHours(readings * 3L / 4);
+
+        StatisticsQuery dashboard = new StatisticsQuery(DASHBOARD);
+        dashboard.setParameter(Parameter.NO2);
+        dashboard.setWindow(from, to);
+        StatisticsTable table = city.query(dashboard);
+        for (AggregationOperator operator : DASHBOARD) {
+            check(table, operator, city.getMeasurementsByStation(operator, Parameter.NO2, from, to));
+        }
+        System.out.println("The query matches the separate calls");
+
+        StatisticsQuery distribution = new StatisticsQuery(StatisticsQuery.Operator.AVG,
+                StatisticsQuery.Operator.STDDEV, StatisticsQuery.Operator.MEDIAN, StatisticsQuery.Operator.P95);
+        distribution.setParameter(Parameter.NO2);
+        distribution.setWindow(from, to);
+        distribution.setStation(SyntheticCity.stationName(0));
+        System.out.println(city.query(distribution));
+        System.out.println();
+
+        harness.measure("getMeasurementsByStation x" + DASHBOARD.length + " window (per dashboard)", () -> {
+            for (int i = 0; i < QUERIES_PER_ITERATION; i++) {
+                for (AggregationOperator operator : DASHBOARD) {
+                    Harness.consume(city.getMeasurementsByStation(operator, Parameter.NO2, from, to));
+                }
+            }
+            return QUERIES_PER_ITERATION;
+        });
+        harness.measure("query " + DASHBOARD.length + " operators window (per dashboard)", () -> {
+            for (int i = 0; i < QUERIES_PER_ITERATION; i++) {
+                Harness.consume(city.query(dashboard));
+            }
+            return QUERIES_PER_ITERATION;
+        });
+
+        distribution.setStation(null);
+        harness.measure("query AVG, STDDEV, MEDIAN, P95 window (per query)", () -> {
+            for (int i = 0; i < QUERIES_PER_ITERATION; i++) {
+                Harness.consume(city.query(distribution));
+            }
+            return QUERIES_PER_ITERATION;
+        });
+    }
+}
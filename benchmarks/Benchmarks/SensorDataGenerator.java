@@ -0,0 +1,280 @@
+package Benchmarks;
+
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Writes synthetic sensor readings in the JSON format read by {@link SensorDataInput.JsonImporter}
+ *
+ * @apiNote Records are written one at a time, so files of any size are generated with constant memory.
+ * Arguments of {@link #main(String[])} are optional key=value pairs: out, stations, sensors (per parameter),
+ * parameters (comma separated), start (yyyyMMddHHmm), hours, interval (minutes), invalid and duplicate (rates
+ * between 0 and 1) and seed. Example:
+ * {@code java Benchmarks.SensorDataGenerator out=big.json stations=2000 hours=8760 invalid=0.01 duplicate=0.01}
+ */
+public class SensorDataGenerator {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+    private static final int INVALID_KINDS = 6;
+
+    private int stations = 10;
+    private final int[] sensorsPerParameter = new int[Parameter.values().length];
+    private LocalDateTime start = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private int hours = 24;
+    private int intervalMinutes = 60;
+    private double invalidRate = 0;
+    private double duplicateRate = 0;
+    private long seed = 42;
+
+    /**
+     * Constructor for {@link SensorDataGenerator}, by default one sensor of each parameter per station
+     */
+    public SensorDataGenerator() {
+        for (Parameter parameter : Parameter.values()) {
+            sensorsPerParameter[parameter.ordinal()] = 1;
+        }
+    }
+
+    /**
+     * Set the number of stations
+     *
+     * @param stations The number of stations
+     */
+    public void setStations(int stations) {
+        this.stations = stations;
+    }
+
+    /**
+     * Set the number of sensors of a {@link Parameter} in each station
+     *
+     * @param parameter The {@link Parameter parameter}
+     * @param sensors   The number of sensors, 0 to leave the parameter out
+     */
+    public void setSensors(Parameter parameter, int sensors) {
+        sensorsPerParameter[parameter.ordinal()] = sensors;
+    }
+
+    /**
+     * Set the time span of the readings
+     *
+     * @param start           The time of the first reading
+     * @param hours           The number of hours covered
+     * @param intervalMinutes The minutes between two readings of a sensor
+     */
+    public void setTimeSpan(LocalDateTime start, int hours, int intervalMinutes) {
+        this.start = start;
+        this.hours = hours;
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    /**
+     * Set the rate of records that the importer must reject
+     *
+     * @param invalidRate The rate between 0 and 1
+     */
+    public void setInvalidRate(double invalidRate) {
+        this.invalidRate = invalidRate;
+    }
+
+    /**
+     * Set the rate of records repeated right after being written
+     *
+     * @param duplicateRate The rate between 0 and 1
+     */
+    public void setDuplicateRate(double duplicateRate) {
+        this.duplicateRate = duplicateRate;
+    }
+
+    /**
+     * Set the seed of the random values, the same seed writes the same file
+     *
+     * @param seed The seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Get the 6 first characters of the id of the sensors of a {@link Parameter}
+     *
+     * @param parameter The {@link Parameter parameter}
+     * @return Returns a prefix decoded as the parameter by {@link Core.Sensor}
+     */
+    private static String sensorPrefix(Parameter parameter) {
+        return switch (parameter) {
+            case NO2 -> "QA0NO2";
+            case O3 -> "QA00O3";
+            case PM2_5 -> "QAPM25";
+            case PM10 -> "QAPM10";
+            case SO2 -> "QA0SO2";
+            case C6H6 -> "QAC6H6";
+            case CO -> "QA00CO";
+            case LAEQ -> "RULAEQ";
+            case PA -> "ME00PA";
+            case HM -> "ME00HM";
+            case TEMP -> "METEMP";
+            case VI -> "ME00VI";
+            case VD -> "ME00VD";
+            case PC -> "ME00PC";
+            case RG -> "ME00RG";
+            case RU -> "ME00RU";
+        };
+    }
+
+    /**
+     * Get the unit of a {@link Parameter} as written by the sensor feeds
+     *
+     * @param parameter The {@link Parameter parameter}
+     * @return Returns the unit, with the latin micro sign and "Mbar" like the real exports
+     */
+    private static String feedUnit(Parameter parameter) {
+        String unit = Unit.getUnitString(parameter.getUnit());
+        if (unit.equals("mbar")) return "Mbar";
+
+        return unit.replace("μ", "µ");
+    }
+
+    /**
+     * Append a valid record
+     *
+     * @param record    The {@link StringBuilder record} to fill
+     * @param sensorId  The id of the sensor
+     * @param date      The date in the importer format
+     * @param value     The read value
+     * @param unit      The unit of the value
+     * @param station   The number of the station
+     * @param withUnit  Set to false to leave the unit out
+     * @param withCoordinates Set to false to write coordinates without latitude
+     */
+    private static void appendRecord(StringBuilder record, String sensorId, String date, double value, String unit,
+                                     int station, boolean withUnit, boolean withCoordinates) {
+        record.append("{\"id\":\"").append(sensorId)
+                .append("\",\"avg\":\"1h\",\"date\":\"").append(date)
+                .append("\",\"dateStandard\":\"UTC\",\"value\":").append(value);
+        if (withUnit) {
+            record.append(",\"unit\":\"").append(unit).append('"');
+        }
+        record.append(",\"address\":\"Station ").append(station)
+                .append("\",\"coordinates\":{\"x\":").append(-90000 + station * 37)
+                .append(",\"y\":").append(-100000 + station * 53)
+                .append(",\"z\":0");
+        if (withCoordinates) {
+            record.append(",\"lat\":").append(38.7 + station % 100 * 0.001);
+        }
+        record.append(",\"lng\":").append(-9.1 - station % 100 * 0.001)
+                .append("}}");
+    }
+
+    /**
+     * Write every record
+     *
+     * @param writer The {@link Writer writer} where the JSON array is written
+     * @return Returns the number of written records
+     */
+    public long generate(Writer writer) throws IOException {
+        Random random = new Random(seed);
+        StringBuilder record = new StringBuilder(256);
+        Parameter[] parameters = Parameter.values();
+        long written = 0;
+
+        writer.write("[\n");
+        for (long minute = 0; minute < hours * 60L; minute += intervalMinutes) {
+            LocalDateTime time = start.plusMinutes(minute);
+            String date = time.format(DATE_FORMAT);
+            double daily = Math.sin(time.getHour() / 24.0 * 2 * Math.PI);
+
+            for (int station = 0; station < stations; station++) {
+                for (Parameter parameter : parameters) {
+                    for (int sensor = 0; sensor < sensorsPerParameter[parameter.ordinal()]; sensor++) {
+                        String sensorId = sensorPrefix(parameter) + String.format("%04d", sensor + 1);
+                        double value = Math.round((20 + 10 * daily + random.nextGaussian() * 3) * 10) / 10.0;
+                        // -99 is the value the importer rejects as out of bounds
+                        if (value == -99) value = -98.9;
+
+                        record.setLength(0);
+                        if (random.nextDouble() < invalidRate) {
+                            switch (random.nextInt(INVALID_KINDS)) {
+                                case 0 -> appendRecord(record, sensorId, date, value, feedUnit(parameter), station, false, true);
+                                case 1 -> appendRecord(record, sensorId, "20211345990", value, feedUnit(parameter), station, true, true);
+                                case 2 -> appendRecord(record, sensorId, date, -99, feedUnit(parameter), station, true, true);
+                                case 3 -> appendRecord(record, sensorId, date, value, "Veículos", station, true, true);
+                                case 4 -> appendRecord(record, "XX" + sensorId.substring(2), date, value, feedUnit(parameter), station, true, true);
+                                default -> appendRecord(record, sensorId, date, value, feedUnit(parameter), station, true, false);
+                            }
+                        } else {
+                            appendRecord(record, sensorId, date, value, feedUnit(parameter), station, true, true);
+                        }
+
+                        if (written > 0) writer.write(",\n");
+                        writer.append(record);
+                        written++;
+
+                        if (random.nextDouble() < duplicateRate) {
+                            writer.write(",\n");
+                            writer.append(record);
+                            written++;
+                        }
+                    }
+                }
+            }
+        }
+        writer.write("\n]\n");
+
+        return written;
+    }
+
+    /**
+     * Write every record to a file
+     *
+     * @param path The {@link String path} of the file
+     * @return Returns the number of written records
+     */
+    public long generate(String path) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8), 1 << 16)) {
+            return generate(writer);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        SensorDataGenerator generator = new SensorDataGenerator();
+        generator.setStations(Harness.argument(args, "stations", 10));
+        generator.setTimeSpan(
+                LocalDateTime.parse(Harness.argument(args, "start", "202101010000"), DATE_FORMAT),
+                Harness.argument(args, "hours", 24),
+                Harness.argument(args, "interval", 60)
+        );
+        generator.setInvalidRate(Harness.argument(args, "invalid", 0.0));
+        generator.setDuplicateRate(Harness.argument(args, "duplicate", 0.0));
+        generator.setSeed(Long.parseLong(Harness.argument(args, "seed", "42")));
+
+        int sensors = Harness.argument(args, "sensors", 1);
+        String selected = Harness.argument(args, "parameters", (String) null);
+        for (Parameter parameter : Parameter.values()) {
+            generator.setSensors(parameter, selected == null ? sensors : 0);
+        }
+        if (selected != null) {
+            for (String name : selected.split(",")) {
+                generator.setSensors(Parameter.valueOf(name.trim()), sensors);
+            }
+        }
+
+        String out = Harness.argument(args, "out", "generated.json");
+        long written = generator.generate(out);
+        System.out.printf("%,d records written to %s%n", written, out);
+    }
+}
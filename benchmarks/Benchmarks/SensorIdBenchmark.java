@@ -0,0 +1,134 @@
+package Benchmarks;
+
+import Core.City;
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import Core.SensorIdDecoder;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.SensorType;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Compares decoding sensor ids by searching every prefix and parameter name in turn with {@link SensorIdDecoder}
+ * and measures creating the sensors of an import through {@link City#addSensor}
+ *
+ * @apiNote Arguments are optional key=value pairs: ids, distinct (ids repeated by the feed), stations,
+ * sensors (per station), warmup and iterations. Every id of every parameter of every type is checked to decode the same way.
+ */
+public class SensorIdBenchmark {
+
+    /**
+     * Identify the type of an id by searching every prefix in turn
+     *
+     * @param sensorId The id
+     * @return Returns the {@link SensorType} or null
+     */
+    private static SensorType searchType(String sensorId) {
+        if (sensorId.startsWith("QA")) return SensorType.AIR;
+        else if (sensorId.startsWith("RU")) return SensorType.NOISE;
+        else if (sensorId.startsWith("ME")) return SensorType.WEATHER;
+        return null;
+    }
+
+    /**
+     * Identify the parameter of an id by searching every name of its type in turn
+     *
+     * @param sensorType The {@link SensorType} of the id
+     * @param sensorId   The id
+     * @return Returns the {@link Parameter} or null
+     */
+    private static Parameter searchParameter(SensorType sensorType, String sensorId) {
+        for (Parameter param : sensorType.getParameters()) {
+            if (sensorId.contains(param.toString())) return param;
+        }
+        return sensorId.contains("PM25") ? Parameter.PM2_5 : null;
+    }
+
+    /**
+     * Build ids of every parameter of every type
+     *
+     * @param n The number of ids
+     * @return Returns the ids, each one a new instance like the ones of a parser
+     */
+    private static String[] ids(int n) {
+        String[] prefixes = {"QA", "RU", "ME"};
+        SensorType[] types = {SensorType.AIR, SensorType.NOISE, SensorType.WEATHER};
+        String[] ids = new String[n];
+        for (int i = 0; i < n; i++) {
+            int type = i % types.length;
+            Parameter[] parameters = types[type].getParameters();
+            String name = parameters[(i / types.length) % parameters.length].toString().replace("_", "");
+            int digits = 10 - prefixes[type].length() - name.length();
+            ids[i] = prefixes[type] + name + String.format("%0" + digits + "d", i % (int) Math.pow(10, digits));
+        }
+        return ids;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int n = Harness.argument(args, "ids", 100_000);
+        int distinct = Harness.argument(args, "distinct", 200);
+        int stations = Harness.argument(args, "stations", 200);
+        int sensors = Harness.argument(args, "sensors", 20);
+        Harness harness = Harness.fromArguments(args, 3, 5);
+
+        String[] ids = ids(n);
+        for (String id : ids) {
+            SensorType sensorType = searchType(id);
+            Parameter parameter = sensorType == null ? null : searchParameter(sensorType, id);
+            SensorIdDecoder.Decoded decoded = SensorIdDecoder.decode(id);
+            if (decoded.getSensorType() != sensorType || decoded.getParameter() != parameter) {
+                throw new IllegalStateException("Decoding differs for " + id);
+            }
+        }
+
+        // Every id once, as when a city is first built, and a feed that repeats the ids of a few sensors
+        String[] feed = new String[n];
+        for (int i = 0; i < n; i++) {
+            feed[i] = ids[i % distinct];
+        }
+        for (String order : new String[]{"distinct ids", "repeated ids"}) {
+            String[] decoded = order.equals("distinct ids") ? ids : feed;
+            harness.measure("Search prefixes and names in turn, " + order + " (per id)", () -> {
+                int found = 0;
+                for (String id : decoded) {
+                    SensorType sensorType = searchType(id);
+                    if (sensorType != null && searchParameter(sensorType, id) != null) found++;
+                }
+                Harness.consume(found);
+                return n;
+            });
+            harness.measure("SensorIdDecoder.decode, " + order + " (per id)", () -> {
+                int found = 0;
+                for (String id : decoded) {
+                    if (SensorIdDecoder.decode(id).getParameter() != null) found++;
+                }
+                Harness.consume(found);
+                return n;
+            });
+        }
+
+        // An import repeats the ids of the same sensors in every station
+        harness.measure("City.addSensor (per sensor)", () -> {
+            City city = new City("Sensors");
+            for (int station = 0; station < stations; station++) {
+                String stationName = SyntheticCity.stationName(station);
+                city.addStation(stationName);
+                for (int sensor = 0; sensor < sensors; sensor++) {
+                    city.addSensor(stationName, ids[sensor], new CartesianCoordinates(station, sensor, 0),
+                            new GeographicCoordinates(38.7, -9.1));
+                }
+            }
+            Harness.consume(city);
+            return stations * sensors;
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package Benchmarks;
+
+import Core.Sensor;
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.exceptions.MeasurementException;
+import edu.ma02.core.exceptions.SensorException;
+
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Measures the cost of {@link Sensor#addMeasurement(double, LocalDateTime, String)} as a sensor grows
+ *
+ * @apiNote Run with a heap big enough for the largest size, e.g. -Xmx2g
+ */
+public class SensorInsertBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000, 10_000_000};
+    private static final LocalDateTime START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    /**
+     * Fill a new {@link Sensor} with hourly readings
+     *
+     * @param readings The number of readings to insert
+     * @return Returns the elapsed time in nanoseconds
+     */
+    private static long fillSensor(int readings) throws SensorException, MeasurementException {
+        Sensor sensor = new Sensor("QA0NO20001",
+                new CartesianCoordinates(0, 0, 0),
+                new GeographicCoordinates(0, 0)
+        );
+        String unit = Unit.getUnitString(sensor.getParameter().getUnit());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < readings; i++) {
+            sensor.addMeasurement(i % 500, START.plusHours(i), unit);
+        }
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws SensorException, MeasurementException {
+        // Warm up the insert path before measuring
+        for (int i = 0; i < 5; i++) {
+            fillSensor(SIZES[1]);
+        }
+
+        for (int size : SIZES) {
+            long elapsed = fillSensor(size);
+            System.out.printf("%,12d readings: %8.1f ns/insert%n", size, elapsed / (double) size);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package Benchmarks;
+
+import Core.City;
+import Core.CitySnapshot;
+import Core.ConcurrentCity;
+import SensorDataInput.JsonImporter;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.interfaces.*;
+
+import java.io.File;
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Checks that a {@link City} reloaded from a {@link CitySnapshot} answers every query like the imported one,
+ * and compares the time of both cold starts
+ *
+ * @apiNote Arguments are optional key=value pairs: stations, hours, invalid and duplicate, as in
+ * {@link SensorDataGenerator}. Example: {@code java Benchmarks.SnapshotRoundTrip stations=200 hours=2160}.
+ * Exits with status 1 and the first difference when a reloaded city answers a query differently.
+ */
+public class SnapshotRoundTrip {
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+    /**
+     * Compare two results of the same query
+     *
+     * @param query    The description of the query
+     * @param expected The result of the imported city
+     * @param actual   The result of the reloaded city
+     * @return Returns the number of compared statistics
+     */
+    private static int compare(String query, IStatistics[] expected, IStatistics[] actual) {
+        if (expected == null || actual == null) {
+            if (expected != actual) throw new IllegalStateException(query + ": null result");
+            return 0;
+        }
+        if (expected.length != actual.length) {
+            throw new IllegalStateException(query + ": " + expected.length + " != " + actual.length + " results");
+        }
+
+        int compared = 0;
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] == null && actual[i] == null) continue;
+            if (expected[i] == null || actual[i] == null
+                    || !expected[i].getDescription().equals(actual[i].getDescription())
+                    || Double.compare(expected[i].getValue(), actual[i].getValue()) != 0) {
+                throw new IllegalStateException(query + ": " + expected[i] + " != " + actual[i]);
+            }
+            compared++;
+        }
+        return compared;
+    }
+
+    /**
+     * Run every {@link ICityStatistics} query over both cities
+     *
+     * @param expected The imported {@link City city}
+     * @param actual   The reloaded {@link City city}
+     * @param hours    The hours covered by the readings
+     * @return Returns the number of compared statistics
+     */
+    private static int compareCities(City expected, City actual, int hours) {
+        LocalDateTime[][] windows = {
+                {START.minusDays(1), START.plusHours(hours + 24)},
+                {START.plusMinutes(30), START.plusHours(hours / 2).plusMinutes(15)},
+                {START.plusHours(hours / 3), START.plusHours(hours / 3 + 25)},
+        };
+
+        int compared = 0;
+        for (Parameter parameter : Parameter.values()) {
+            for (AggregationOperator operator : AggregationOperator.values()) {
+                compared += compare("Stations " + operator + " " + parameter,
+                        expected.getMeasurementsByStation(operator, parameter),
+                        actual.getMeasurementsByStation(operator, parameter));
+                for (LocalDateTime[] window : windows) {
+                    compared += compare("Stations " + operator + " " + parameter + " " + window[0],
+                            expected.getMeasurementsByStation(operator, parameter, window[0], window[1]),
+                            actual.getMeasurementsByStation(operator, parameter, window[0], window[1]));
+                }
+
+                for (IStation station : expected.getStations()) {
+                    if (station == null) continue;
+
+                    String name = station.getName();
+                    compared += compare("Sensors of " + name + " " + operator + " " + parameter,
+                            expected.getMeasurementsBySensor(name, operator, parameter),
+                            actual.getMeasurementsBySensor(name, operator, parameter));
+                    for (LocalDateTime[] window : windows) {
+                        compared += compare("Sensors of " + name + " " + operator + " " + parameter + " " + window[0],
+                                expected.getMeasurementsBySensor(name, operator, parameter, window[0], window[1]),
+                                actual.getMeasurementsBySensor(name, operator, parameter, window[0], window[1]));
+                    }
+                }
+            }
+        }
+
+        for (IStation station : expected.getStations()) {
+            if (station == null) continue;
+
+            for (ISensor sensor : station.getSensors()) {
+                if (sensor == null) continue;
+
+                IMeasurement[] expectedReadings = expected.getMeasurementsBySensor(sensor.getId());
+                IMeasurement[] actualReadings = actual.getMeasurementsBySensor(sensor.getId());
+                if (expectedReadings.length != actualReadings.length) {
+                    throw new IllegalStateException("Readings of " + sensor.getId() + " differ in number");
+                }
+                for (int i = 0; i < expectedReadings.length; i++) {
+                    if (!expectedReadings[i].equals(actualReadings[i])) {
+                        throw new IllegalStateException("Reading " + i + " of " + sensor.getId() + " differs");
+                    }
+                }
+            }
+        }
+
+        return compared;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int hours = Harness.argument(args, "hours", 720);
+
+        SensorDataGenerator generator = new SensorDataGenerator();
+        generator.setStations(Harness.argument(args, "stations", 50));
+        generator.setTimeSpan(START, hours, 60);
+        generator.setInvalidRate(Harness.argument(args, "invalid", 0.01));
+        generator.setDuplicateRate(Harness.argument(args, "duplicate", 0.01));
+
+        File json = File.createTempFile("round-trip", ".json");
+        File snapshot = File.createTempFile("round-trip", ".snapshot");
+        json.deleteOnExit();
+        snapshot.deleteOnExit();
+
+        long records = generator.generate(json.getPath());
+        System.out.printf("%,d records, %,d bytes of JSON%n", records, json.length());
+
+        long start = System.nanoTime();
+        City imported = new City("Imported");
+        new JsonImporter(true).importData(imported, json.getPath());
+        long importTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        CitySnapshot.save(imported, snapshot.getPath());
+        long saveTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        City loaded = CitySnapshot.load(snapshot.getPath());
+        long loadTime = System.nanoTime() - start;
+
+        System.out.printf("Snapshot: %,d bytes%n", snapshot.length());
+        System.out.printf("JSON import %,d ms, snapshot save %,d ms, snapshot load %,d ms%n",
+                importTime / 1_000_000, saveTime / 1_000_000, loadTime / 1_000_000);
+
+        ConcurrentCity concurrent = new ConcurrentCity("Concurrent");
+        CitySnapshot.load(snapshot.getPath(), concurrent);
+
+        int compared;
+        try {
+            compared = compareCities(imported, loaded, hours);
+            compareCities(imported, concurrent, hours);
+        } catch (IllegalStateException e) {
+            System.err.println("Round trip FAILED: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.printf("Round trip OK, %,d statistics compared%n", compared);
+    }
+}
@@ -0,0 +1,126 @@
+package Benchmarks;
+
+import Core.City;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.interfaces.IStatistics;
+
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Dashboard refreshes between ingestion batches, with and without the {@link Core.StatisticsCache}
+ *
+ * @apiNote Arguments are optional key=value pairs: stations, sensors (per station), readings (per sensor),
+ * refreshes (between batches), batches, warmup and iterations.
+ * Every refresh of the cached city is checked against a city without cache fed with the same readings.
+ */
+public class StatisticsCacheBenchmark {
+
+    /**
+     * Run every query of the dashboard
+     *
+     * @param city    The {@link City city}
+     * @param station The station of the sensor queries
+     * @param from    The start of the window
+     * @param to      The end of the window
+     * @return Returns the results, in a fixed order
+     */
+    private static IStatistics[][] refresh(City city, String station, LocalDateTime from, LocalDateTime to) {
+        AggregationOperator[] operators = AggregationOperator.values();
+        IStatistics[][] results = new IStatistics[operators.length * 3][];
+        for (int i = 0; i < operators.length; i++) {
+            results[i * 3] = city.getMeasurementsByStation(operators[i], Parameter.NO2);
+            results[i * 3 + 1] = city.getMeasurementsByStation(operators[i], Parameter.NO2, from, to);
+            results[i * 3 + 2] = city.getMeasurementsBySensor(station, operators[i], Parameter.NO2);
+        }
+        return results;
+    }
+
+    /**
+     * Check that two refreshes have the same statistics
+     *
+     * @param expected The refresh without cache
+     * @param actual   The refresh with cache
+     */
+    private static void check(IStatistics[][] expected, IStatistics[][] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i].length != actual[i].length) {
+                throw new IllegalStateException("Query " + i + " has a different number of statistics");
+            }
+            for (int j = 0; j < expected[i].length; j++) {
+                IStatistics e = expected[i][j], a = actual[i][j];
+                if (e == null ? a != null : a == null || !e.getDescription().equals(a.getDescription())
+                        || Double.compare(e.getValue(), a.getValue()) != 0) {
+                    throw new IllegalStateException("Query " + i + " differs at " + j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a batch of readings to the first station
+     *
+     * @param city   The {@link City city}
+     * @param batch  The number of the batch
+     * @param sensor The id of the sensor
+     */
+    private static void ingest(City city, int batch, String sensor) throws Exception {
+        String unit = Unit.getUnitString(Parameter.NO2.getUnit());
+        for (int i = 0; i < 10; i++) {
+            city.addMeasurement(SyntheticCity.stationName(0), sensor, (batch * 10 + i) % 100, unit,
+                    SyntheticCity.START.minusYears(1).plusMinutes(batch * 10L + i));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int stations = Harness.argument(args, "stations", 200);
+        int sensors = Harness.argument(args, "sensors", 8);
+        int readings = Harness.argument(args, "readings", 1_000);
+        int refreshes = Harness.argument(args, "refreshes", 50);
+        int batches = Harness.argument(args, "batches", 10);
+        Harness harness = Harness.fromArguments(args, 3, 5);
+
+        SyntheticCity synthetic = new SyntheticCity(stations, sensors, readings);
+        City plain = synthetic.fill(new City("Plain"));
+        City cached = synthetic.fill(new City("Cached"));
+        cached.setStatisticsCache(1024);
+
+        String station = SyntheticCity.stationName(1);
+        String sensor = SyntheticCity.sensorId(0);
+        LocalDateTime from = SyntheticCity.START.plusHours(readings / 4);
+        LocalDateTime to = SyntheticCity.START.plusHours(readings * 3L / 4);
+
+        for (int batch = 0; batch < batches; batch++) {
+            ingest(plain, batch, sensor);
+            ingest(cached, batch, sensor);
+            for (int r = 0; r < 3; r++) {
+                check(refresh(plain, station, from, to), refresh(cached, station, from, to));
+            }
+        }
+        System.out.println("Cached results match after every batch: " + cached.getStatisticsCache());
+        System.out.println();
+
+        int[] batch = {batches};
+        for (City city : new City[]{plain, cached}) {
+            harness.measure(city.getName() + " refresh x" + refreshes + " + batch (per batch)", () -> {
+                ingest(city, batch[0]++, sensor);
+                for (int r = 0; r < refreshes; r++) {
+                    Harness.consume(refresh(city, station, from, to));
+                }
+                return 1;
+            });
+        }
+        System.out.println(cached.getStatisticsCache());
+    }
+}
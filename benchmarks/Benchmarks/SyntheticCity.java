@@ -0,0 +1,169 @@
+package Benchmarks;
+
+import Core.City;
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.exceptions.CityException;
+import edu.ma02.core.exceptions.MeasurementException;
+import edu.ma02.core.exceptions.SensorException;
+import edu.ma02.core.exceptions.StationException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Deterministic synthetic city with a configurable number of stations, sensors and hourly readings
+ */
+public class SyntheticCity {
+    // The first 6 characters of the sensor ids, one per parameter, the last 4 are a counter
+    private static final String[] SENSOR_PREFIXES = {
+            "QA0NO2", "QA00O3", "QAPM10", "QAPM25", "QA00CO", "RULAEQ", "METEMP", "ME00PA"
+    };
+    private static final Parameter[] SENSOR_PARAMETERS = {
+            Parameter.NO2, Parameter.O3, Parameter.PM10, Parameter.PM2_5, Parameter.CO,
+            Parameter.LAEQ, Parameter.TEMP, Parameter.PA
+    };
+
+    public static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private final int stations;
+    private final int sensorsPerStation;
+    private final int readingsPerSensor;
+
+    /**
+     * Constructor for {@link SyntheticCity}
+     *
+     * @param stations          The number of stations
+     * @param sensorsPerStation The number of sensors of each station, parameters are assigned in turn
+     * @param readingsPerSensor The number of hourly readings of each sensor
+     */
+    public SyntheticCity(int stations, int sensorsPerStation, int readingsPerSensor) {
+        this.stations = stations;
+        this.sensorsPerStation = sensorsPerStation;
+        this.readingsPerSensor = readingsPerSensor;
+    }
+
+    /**
+     * Get the name of a station
+     *
+     * @param station The number of the station
+     * @return Returns the name of the station
+     */
+    public static String stationName(int station) {
+        return "Station " + station;
+    }
+
+    /**
+     * Get the id of a sensor
+     *
+     * @param sensor The number of the sensor inside its station
+     * @return Returns the 10 character id of the sensor
+     */
+    public static String sensorId(int sensor) {
+        return SENSOR_PREFIXES[sensor % SENSOR_PREFIXES.length] + String.format("%04d", sensor / SENSOR_PREFIXES.length);
+    }
+
+    /**
+     * Get the {@link Parameter} of a sensor
+     *
+     * @param sensor The number of the sensor inside its station
+     * @return Returns the {@link Parameter} measured by the sensor
+     */
+    public static Parameter parameterOf(int sensor) {
+        return SENSOR_PARAMETERS[sensor % SENSOR_PARAMETERS.length];
+    }
+
+    /**
+     * Get the value of a reading
+     *
+     * @param station The number of the station
+     * @param sensor  The number of the sensor
+     * @param reading The number of the reading
+     * @return Returns a value that changes over the day and between sensors
+     */
+    public static double valueOf(int station, int sensor, int reading) {
+        return (reading % 24) * 2.5 + (station * 31 + sensor * 7) % 50;
+    }
+
+    /**
+     * Get the number of readings of the city
+     *
+     * @return Returns stations * sensors * readings
+     */
+    public long size() {
+        return (long) stations * sensorsPerStation * readingsPerSensor;
+    }
+
+    /**
+     * Build a {@link City} with every station, sensor and reading
+     *
+     * @param city The empty {@link City city} to fill
+     * @return Returns the filled {@link City}
+     */
+    public City fill(City city) throws CityException, StationException, SensorException, MeasurementException {
+        for (int station = 0; station < stations; station++) {
+            city.addStation(stationName(station));
+            for (int sensor = 0; sensor < sensorsPerStation; sensor++) {
+                city.addSensor(stationName(station), sensorId(sensor),
+                        new CartesianCoordinates(station, sensor, 0),
+                        new GeographicCoordinates(38.7, -9.1)
+                );
+            }
+        }
+
+        for (int reading = 0; reading < readingsPerSensor; reading++) {
+            LocalDateTime time = START.plusHours(reading);
+            for (int station = 0; station < stations; station++) {
+                for (int sensor = 0; sensor < sensorsPerStation; sensor++) {
+                    city.addMeasurement(stationName(station), sensorId(sensor), valueOf(station, sensor, reading),
+                            Unit.getUnitString(parameterOf(sensor).getUnit()), time);
+                }
+            }
+        }
+
+        return city;
+    }
+
+    /**
+     * Write every reading as a JSON file in the format read by {@link SensorDataInput.JsonImporter}
+     *
+     * @param file The {@link File file} to write
+     */
+    public void writeJson(File file) throws IOException {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write("[");
+            boolean first = true;
+            for (int reading = 0; reading < readingsPerSensor; reading++) {
+                String date = START.plusHours(reading).format(formatter);
+                for (int station = 0; station < stations; station++) {
+                    for (int sensor = 0; sensor < sensorsPerStation; sensor++) {
+                        if (!first) writer.write(",");
+                        first = false;
+                        writer.write("{\"id\":\"" + sensorId(sensor) + "\",\"date\":\"" + date +
+                                "\",\"value\":" + valueOf(station, sensor, reading) +
+                                ",\"unit\":\"" + Unit.getUnitString(parameterOf(sensor).getUnit()) +
+                                "\",\"address\":\"" + stationName(station) +
+                                "\",\"coordinates\":{\"x\":" + station + ",\"y\":" + sensor + ",\"z\":0,\"lat\":38.7,\"lng\":-9.1}}");
+                    }
+                }
+            }
+            writer.write("]");
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package Benchmarks;
+
+import Core.Measurement;
+import SensorDataInput.TimestampDecoder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Compares {@link TimestampDecoder} with {@link LocalDateTime#parse(CharSequence, DateTimeFormatter)}
+ * on the yyyyMMddHHmm dates of a feed
+ *
+ * @apiNote Arguments are optional key=value pairs: hours, sensors (records per hour), warmup and iterations.
+ * Records of the same hour come in bursts, one per sensor.
+ * Every combination of a few years with every month, day, hour and some minutes, valid or not,
+ * and some malformed dates are checked to decode as the formatter parses them.
+ */
+public class TimestampBenchmark {
+    private static final String PATTERN = "yyyyMMddHHmm";
+
+    /**
+     * Parse a date with a formatter
+     *
+     * @param text      The date
+     * @param formatter The {@link DateTimeFormatter formatter}
+     * @return Returns the time in minutes since the epoch or {@link TimestampDecoder#INVALID}
+     */
+    private static long parse(String text, DateTimeFormatter formatter) {
+        try {
+            return Measurement.toEpochMinute(LocalDateTime.parse(text, formatter));
+        } catch (DateTimeParseException e) {
+            return TimestampDecoder.INVALID;
+        }
+    }
+
+    /**
+     * Check that the decoder and the formatter agree on a date
+     *
+     * @param decoder   The {@link TimestampDecoder decoder}
+     * @param formatter The {@link DateTimeFormatter formatter}
+     * @param text      The date
+     */
+    private static void check(TimestampDecoder decoder, DateTimeFormatter formatter, String text) {
+        long expected = parse(text, formatter);
+        long actual = decoder.decode(text);
+        if (expected != actual) {
+            throw new IllegalStateException(text + ": parsed " + expected + ", decoded " + actual);
+        }
+    }
+
+    /**
+     * Check every combination of some years, every month and day including invalid ones and every hour
+     *
+     * @return Returns the number of checked dates
+     */
+    private static int checkAll() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(PATTERN);
+        TimestampDecoder decoder = new TimestampDecoder();
+        int[] years = {0, 1, 4, 100, 400, 1900, 1970, 2000, 2019, 2020, 2021, 2100, 9999};
+        int[] minutes = {0, 1, 30, 59, 60, 99};
+
+        int checked = 0;
+        for (int year : years) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    for (int hour = 0; hour <= 25; hour++) {
+                        for (int minute : minutes) {
+                            check(decoder, formatter, String.format("%04d%02d%02d%02d%02d", year, month, day, hour, minute));
+                            checked++;
+                        }
+                    }
+                }
+            }
+        }
+
+        String[] malformed = {"", "2020010100", "2020010100000", "20200101000a", "2020-1010000", "+02001010000",
+                " 02001010000", "2020010100¹00", "２０２００１０１００００"};
+        for (String text : malformed) {
+            check(decoder, formatter, text);
+            checked++;
+        }
+        return checked;
+    }
+
+    /**
+     * Build the dates of a feed
+     *
+     * @param hours   The number of hours
+     * @param sensors The number of records of each hour
+     * @return Returns the dates, each one a new instance like the ones of a parser
+     */
+    private static String[] feed(int hours, int sensors) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(PATTERN);
+        String[] dates = new String[hours * sensors];
+        for (int hour = 0; hour < hours; hour++) {
+            String date = SyntheticCity.START.plusHours(hour).format(formatter);
+            for (int sensor = 0; sensor < sensors; sensor++) {
+                dates[hour * sensors + sensor] = new String(date);
+            }
+        }
+        return dates;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int hours = Harness.argument(args, "hours", 10_000);
+        int sensors = Harness.argument(args, "sensors", 20);
+        Harness harness = Harness.fromArguments(args, 3, 5);
+
+        System.out.printf("%,d dates decode as the formatter parses them%n%n", checkAll());
+
+        for (int burst : new int[]{sensors, 1}) {
+            String[] dates = feed(burst == 1 ? hours * sensors : hours, burst);
+            String order = burst == 1 ? "a new hour every record" : burst + " records per hour";
+
+            harness.measure("New formatter and LocalDateTime.parse, " + order + " (per date)", () -> {
+                long sum = 0;
+                for (String date : dates) {
+                    sum += parse(date, DateTimeFormatter.ofPattern(PATTERN));
+                }
+                Harness.consume(sum);
+                return dates.length;
+            });
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(PATTERN);
+            harness.measure("Shared formatter and LocalDateTime.parse, " + order + " (per date)", () -> {
+                long sum = 0;
+                for (String date : dates) {
+                    sum += parse(date, formatter);
+                }
+                Harness.consume(sum);
+                return dates.length;
+            });
+            TimestampDecoder decoder = new TimestampDecoder();
+            harness.measure("TimestampDecoder, " + order + " (per date)", () -> {
+                long sum = 0;
+                for (String date : dates) {
+                    sum += decoder.decode(date);
+                }
+                Harness.consume(sum);
+                return dates.length;
+            });
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package Benchmarks;
+
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import Core.Measurement;
+import Core.Sensor;
+import Core.UnitResolver;
+import edu.ma02.core.enumerations.Unit;
+
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Compares resolving the unit strings of a feed on every reading with {@link UnitResolver}
+ * and the string and {@link Unit} overloads of {@link Sensor#addMeasurement}
+ *
+ * @apiNote Arguments are optional key=value pairs: readings, warmup and iterations.
+ * The feed repeats the spellings of the sample files, the latin micro sign and "Mbar" included,
+ * and both resolutions are checked to give the same units.
+ */
+public class UnitResolutionBenchmark {
+    private static final String[] FEED_UNITS = {
+            "µg/m3", "μg/m3", "mg/m3", "dB(A)", "Mbar", "mbar", "%", "km/h", "mm", "W/m2"
+    };
+
+    /**
+     * Resolve a unit string the way every reading used to
+     *
+     * @param unit The unit as written in the feed
+     * @return Returns the {@link Unit} or null
+     */
+    private static Unit resolveEveryTime(String unit) {
+        if (unit.startsWith("µ")) {
+            unit = unit.replace("µ", "μ");
+        }
+        if (unit.equals("Mbar")) {
+            unit = unit.toLowerCase();
+        }
+        return Unit.getUnitFromString(unit);
+    }
+
+    /**
+     * Build the unit strings of a feed, as fresh instances like the ones of a parser
+     *
+     * @param readings The number of readings
+     * @return Returns the unit of each reading
+     */
+    private static String[] feed(int readings) {
+        String[] units = new String[readings];
+        for (int i = 0; i < readings; i++) {
+            units[i] = new String(FEED_UNITS[i % FEED_UNITS.length]);
+        }
+        return units;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int readings = Harness.argument(args, "readings", 1_000_000);
+        Harness harness = Harness.fromArguments(args, 3, 5);
+
+        String[] units = feed(readings);
+        for (String unit : FEED_UNITS) {
+            if (resolveEveryTime(unit) != UnitResolver.resolve(unit)) {
+                throw new IllegalStateException("Units differ for " + unit);
+            }
+        }
+
+        harness.measure("Resolve on every reading (per reading)", () -> {
+            int found = 0;
+            for (String unit : units) {
+                if (resolveEveryTime(unit) != null) found++;
+            }
+            Harness.consume(found);
+            return readings;
+        });
+        harness.measure("UnitResolver.resolve (per reading)", () -> {
+            int found = 0;
+            for (String unit : units) {
+                if (UnitResolver.resolve(unit) != null) found++;
+            }
+            Harness.consume(found);
+            return readings;
+        });
+
+        String unitString = new String(FEED_UNITS[0]);
+        Unit unit = UnitResolver.resolve(unitString);
+        LocalDateTime start = LocalDateTime.of(2000, 1, 1, 0, 0);
+        harness.measure("Sensor.addMeasurement with a unit string (per reading)", () -> {
+            Sensor sensor = new Sensor("QA0PM10001", new CartesianCoordinates(0, 0, 0), new GeographicCoordinates(0, 0));
+            for (int i = 0; i < readings; i++) {
+                sensor.addMeasurement(i % 500, start.plusMinutes(i), unitString);
+            }
+            Harness.consume(sensor);
+            return readings;
+        });
+        harness.measure("Sensor.addMeasurement with a resolved Unit (per reading)", () -> {
+            Sensor sensor = new Sensor("QA0PM10001", new CartesianCoordinates(0, 0, 0), new GeographicCoordinates(0, 0));
+            for (int i = 0; i < readings; i++) {
+                sensor.addMeasurement(i % 500, Measurement.toEpochMinute(start.plusMinutes(i)), unit);
+            }
+            Harness.consume(sensor);
+            return readings;
+        });
+    }
+}
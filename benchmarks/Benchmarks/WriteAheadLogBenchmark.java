@@ -0,0 +1,207 @@
+package Benchmarks;
+
+import Core.City;
+import Core.CitySnapshot;
+import Core.ConcurrentCity;
+import Core.WriteAheadLog;
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.interfaces.ISensor;
+import edu.ma02.core.interfaces.IStation;
+import edu.ma02.core.interfaces.IStatistics;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Measures the cost of logging through a {@link WriteAheadLog} and checks that recovery rebuilds the same city
+ *
+ * @apiNote Arguments are optional key=value pairs: stations, sensors (per station), readings (per sensor)
+ * and writers (threads of the group commit run). Example: {@code java Benchmarks.WriteAheadLogBenchmark readings=2000}
+ */
+public class WriteAheadLogBenchmark {
+
+    /**
+     * Describe the state of a city, equal cities have equal descriptions
+     *
+     * @param city The {@link City city}
+     * @return Returns the number of readings and the station averages of every parameter
+     */
+    private static String describe(City city) {
+        StringBuilder description = new StringBuilder();
+        int readings = 0;
+        for (IStation station : city.getStations()) {
+            if (station == null) continue;
+            for (ISensor sensor : station.getSensors()) {
+                if (sensor != null) readings += sensor.getNumMeasurements();
+            }
+        }
+        description.append(readings).append(" readings");
+
+        for (Parameter parameter : Parameter.values()) {
+            for (IStatistics statistic : city.getMeasurementsByStation(AggregationOperator.AVG, parameter)) {
+                if (statistic != null) {
+                    description.append(' ').append(statistic.getDescription()).append('=').append(statistic.getValue());
+                }
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * Check that two cities hold the same data
+     *
+     * @param what     The name of the check
+     * @param expected The original {@link City city}
+     * @param actual   The recovered {@link City city}
+     */
+    private static void check(String what, City expected, City actual) {
+        if (!describe(expected).equals(describe(actual))) {
+            throw new IllegalStateException(what + ": the recovered city differs");
+        }
+        System.out.println(what + ": OK");
+    }
+
+    /**
+     * Fill a city through a log and report the cost per reading
+     *
+     * @param synthetic  The {@link SyntheticCity} to add
+     * @param durability The {@link WriteAheadLog.Durability durability} of the log
+     * @param log        The {@link File file} of the log
+     * @return Returns the filled {@link City}
+     */
+    private static City fill(SyntheticCity synthetic, WriteAheadLog.Durability durability, File log) throws Exception {
+        log.delete();
+        City city = new City("Logged");
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log.getPath(), durability)) {
+            city.setWriteAheadLog(writeAheadLog);
+
+            long start = System.nanoTime();
+            synthetic.fill(city);
+            writeAheadLog.commit();
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%-12s %,10d readings: %8.2f µs/reading, %,8d syncs%n", durability, synthetic.size(),
+                    elapsed / 1_000.0 / synthetic.size(), writeAheadLog.getSyncCount());
+        }
+        city.setWriteAheadLog(null);
+        return city;
+    }
+
+    /**
+     * Recover a city from a log and optionally a snapshot
+     *
+     * @param log      The {@link File file} of the log
+     * @param snapshot The {@link File file} of the snapshot or null
+     * @return Returns the recovered {@link City}
+     */
+    private static City recover(File log, File snapshot) throws Exception {
+        City city = snapshot == null ? new City("Recovered") : CitySnapshot.load(snapshot.getPath());
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log.getPath(), WriteAheadLog.Durability.BATCH)) {
+            writeAheadLog.replay(city);
+        }
+        return city;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int stations = Harness.argument(args, "stations", 20);
+        int sensors = Harness.argument(args, "sensors", 8);
+        int readings = Harness.argument(args, "readings", 1_000);
+        int writers = Harness.argument(args, "writers", 8);
+
+        File log = File.createTempFile("benchmark", ".wal");
+        File snapshot = File.createTempFile("benchmark", ".snapshot");
+        log.deleteOnExit();
+        snapshot.deleteOnExit();
+
+        SyntheticCity synthetic = new SyntheticCity(stations, sensors, readings);
+
+        // Without a log, warms up the insert path too
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            synthetic.fill(new City("Unlogged"));
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-12s %,10d readings: %8.2f µs/reading%n", "No log", synthetic.size(),
+                    elapsed / 1_000.0 / synthetic.size());
+        }
+
+        fill(synthetic, WriteAheadLog.Durability.NONE, log);
+        City original = fill(synthetic, WriteAheadLog.Durability.BATCH, log);
+        // One sync per reading, so a much smaller city
+        fill(new SyntheticCity(2, 2, 250), WriteAheadLog.Durability.EVERY_WRITE, log);
+
+        // Recovery after a crash in the middle of a record
+        original = fill(synthetic, WriteAheadLog.Durability.BATCH, log);
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.seek(file.length());
+            file.write(new byte[]{0, 0, 0, 40, 1, 2, 3});
+        }
+        check("Replay with a torn last record", original, recover(log, null));
+
+        // Recovery from a checkpoint and the readings logged after it
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log.getPath(), WriteAheadLog.Durability.BATCH)) {
+            original.setWriteAheadLog(writeAheadLog);
+            writeAheadLog.checkpoint(original, snapshot.getPath());
+
+            String unit = Unit.getUnitString(SyntheticCity.parameterOf(0).getUnit());
+            LocalDateTime after = SyntheticCity.START.plusHours(readings + 1L);
+            for (int station = 0; station < stations; station++) {
+                original.addMeasurement(SyntheticCity.stationName(station), SyntheticCity.sensorId(0), 1, unit, after);
+            }
+            original.setWriteAheadLog(null);
+        }
+        check("Snapshot and replay", original, recover(log, snapshot));
+
+        // Group commit, every write waits for the disk but concurrent writers share the syncs
+        log.delete();
+        ConcurrentCity concurrent = new ConcurrentCity("Concurrent");
+        int perWriter = 200;
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log.getPath(), WriteAheadLog.Durability.EVERY_WRITE)) {
+            concurrent.setWriteAheadLog(writeAheadLog);
+            String unit = Unit.getUnitString(SyntheticCity.parameterOf(0).getUnit());
+            for (int writer = 0; writer < writers; writer++) {
+                concurrent.addStation(SyntheticCity.stationName(writer));
+                concurrent.addSensor(SyntheticCity.stationName(writer), SyntheticCity.sensorId(0), null, null);
+            }
+            long syncsBefore = writeAheadLog.getSyncCount();
+
+            Thread[] threads = new Thread[writers];
+            for (int writer = 0; writer < writers; writer++) {
+                String stationName = SyntheticCity.stationName(writer);
+                threads[writer] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < perWriter; i++) {
+                            concurrent.addMeasurement(stationName, SyntheticCity.sensorId(0), i,
+                                    unit, SyntheticCity.START.plusHours(i));
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+
+            long start = System.nanoTime();
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) thread.join();
+            long elapsed = System.nanoTime() - start;
+
+            long syncs = writeAheadLog.getSyncCount() - syncsBefore;
+            System.out.printf("Group commit, %d writers x %d readings: %8.2f µs/reading, %,d syncs%n",
+                    writers, perWriter, elapsed / 1_000.0 / (writers * perWriter), syncs);
+            concurrent.setWriteAheadLog(null);
+        }
+        check("Replay of the group commit", concurrent, recover(log, null));
+    }
+}
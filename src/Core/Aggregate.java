@@ -0,0 +1,136 @@
+package Core;
+
+import edu.ma02.core.enumerations.AggregationOperator;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Sum, minimum, maximum and count of a group of readings
+ */
+public class Aggregate {
+    private double sum = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private int count = 0;
+
+    /**
+     * Empty constructor for {@link Aggregate}
+     */
+    public Aggregate() {
+    }
+
+    /**
+     * Remove every reading from the {@link Aggregate}, so it can be reused
+     */
+    public void clear() {
+        sum = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        count = 0;
+    }
+
+    /**
+     * Add a reading to the {@link Aggregate}
+     *
+     * @param value The read value
+     */
+    public void add(double value) {
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        count++;
+    }
+
+    /**
+     * Add every reading of another {@link Aggregate} to this one
+     *
+     * @param other The {@link Aggregate other} to merge
+     */
+    public void merge(Aggregate other) {
+        merge(other.sum, other.min, other.max, other.count);
+    }
+
+    /**
+     * Add a pre-aggregated group of readings to this {@link Aggregate}
+     *
+     * @param sum   The sum of the group
+     * @param min   The minimum of the group
+     * @param max   The maximum of the group
+     * @param count The number of readings of the group
+     */
+    public void merge(double sum, double min, double max, int count) {
+        this.sum += sum;
+        if (min < this.min) this.min = min;
+        if (max > this.max) this.max = max;
+        this.count += count;
+    }
+
+    /**
+     * Get the sum of the readings
+     *
+     * @return Returns the sum
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Get the smallest reading
+     *
+     * @return Returns the minimum or {@link Double#POSITIVE_INFINITY} if there are no readings
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Get the biggest reading
+     *
+     * @return Returns the maximum or {@link Double#NEGATIVE_INFINITY} if there are no readings
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Get the number of readings
+     *
+     * @return Returns the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the average of the readings
+     *
+     * @return Returns the average or 0 if there are no readings
+     */
+    public double getAverage() {
+        // Division by 0 in Java causes 'Not a Number' (NaN)
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Get the value of an {@link AggregationOperator}
+     *
+     * @param aggregationOperator The {@link AggregationOperator aggregationOperator} to apply
+     * @return Returns the aggregated value
+     */
+    public double get(AggregationOperator aggregationOperator) {
+        return switch (aggregationOperator) {
+            case AVG -> getAverage();
+            case MIN -> min;
+            case MAX -> max;
+            case COUNT -> count;
+        };
+    }
+}
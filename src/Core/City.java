@@ -2,13 +2,17 @@ package Core;
 
 import edu.ma02.core.enumerations.AggregationOperator;
 import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.SensorType;
+import edu.ma02.core.enumerations.Unit;
 import edu.ma02.core.exceptions.CityException;
 import edu.ma02.core.exceptions.MeasurementException;
 import edu.ma02.core.exceptions.SensorException;
 import edu.ma02.core.exceptions.StationException;
 import edu.ma02.core.interfaces.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
 /*
  * Nome: Micael André Cunha Dias
@@ -21,10 +25,40 @@ import java.time.LocalDateTime;
  */
 
 public class City implements ICity, ICityStatistics {
+    // Window limits used by the statistics when no dates are given
+    private static final long NO_START = Long.MIN_VALUE;
+    private static final long NO_END = Long.MAX_VALUE;
+
     private static Integer cityId = 0;
     private final String cityName;
     private Station[] stations;
     private int nStations = 0;
+    private final NameIndex<Station> stationsByName;
+    private final NameIndex<SensorLocation> sensorsById;
+    private final PartitionIndex<Sensor> sensorsByParameter;
+    private final PartitionIndex<Sensor> sensorsByType;
+    private MeasurementArchive archive;
+    private WriteAheadLog writeAheadLog;
+    private StatisticsCache statisticsCache;
+
+    /**
+     * Location of a {@link Sensor} inside the city
+     */
+    private static class SensorLocation {
+        private final Station station;
+        private final Sensor sensor;
+
+        /**
+         * Constructor for {@link SensorLocation}
+         *
+         * @param station The {@link Station station} of the sensor
+         * @param sensor  The {@link Sensor sensor}
+         */
+        private SensorLocation(Station station, Sensor sensor) {
+            this.station = station;
+            this.sensor = sensor;
+        }
+    }
 
     /**
      * Constructor for {@link City}
@@ -35,6 +69,10 @@ public class City implements ICity, ICityStatistics {
         cityId = ++cityId;
         cityName = name;
         stations = new Station[10];
+        stationsByName = new NameIndex<>();
+        sensorsById = new NameIndex<>();
+        sensorsByParameter = new PartitionIndex<>(Parameter.values().length);
+        sensorsByType = new PartitionIndex<>(SensorType.values().length);
     }
 
     /**
@@ -53,206 +91,184 @@ public class City implements ICity, ICityStatistics {
      * @return Returns an instance of {@link Station}
      */
     private IStation getStationByName(String stationName) {
-        if (stationName == null) return null;
-
-        for (IStation iStation : stations) {
-            if (iStation instanceof Station station) {
-                if (station.getName().equals(stationName)) {
-                    return station;
-                }
-            }
-        }
-
-        return null;
+        return stationsByName.get(stationName);
     }
 
     /**
-     * Finds a {@link Sensor sensor} at {@link IStation station} by {@link String sensorId}
+     * Index a {@link Sensor} added to one of the city {@link Station stations}
      *
-     * @param station  The station where to look
-     * @param sensorId The sensorId to look for
-     * @return Returns an instance of a {@link Sensor}
-     */
-    private ISensor getSensorAtStationById(IStation station, String sensorId) {
-        for (ISensor iSensor : station.getSensors()) {
-            if (iSensor instanceof Sensor sensor) {
-                if (sensor.getId().equals(sensorId)) {
-                    return sensor;
-                }
-            }
+     * @param station The {@link Station station} where the sensor was added
+     * @param sensor  The added {@link Sensor sensor}
+     * @implNote Called by {@link Station} so sensors added directly to a station are also indexed.
+     * When two stations have a sensor with the same id the first one added is kept by id,
+     * both are kept by {@link Parameter} and {@link SensorType}.
+     */
+    void sensorAdded(Station station, Sensor sensor) {
+        sensorsByParameter.add(sensor.getParameter().ordinal(), sensor);
+        sensorsByType.add(sensor.getType().ordinal(), sensor);
+        readingsChanged(station, sensor);
+        if (sensorsById.get(sensor.getId()) == null) {
+            sensorsById.put(sensor.getId(), new SensorLocation(station, sensor));
         }
-
-        return null;
     }
 
     /**
-     * Calculate the average of measurements by {@link ISensor sensor}
+     * Tell the {@link StatisticsCache} that the readings of a {@link Sensor} changed
      *
-     * @param sensors The array of {@link ISensor[] sensors}
-     * @return Return an array of {@link IStatistics}
+     * @param station The {@link Station station} of the sensor
+     * @param sensor  The added or changed {@link Sensor sensor}
+     * @implNote Called by {@link Station} for every reading added through it, also directly,
+     * and when readings are restored by {@link CitySnapshot} and {@link WriteAheadLog}
      */
-    private IStatistics[] avgOfMeasurementsBySensor(ISensor[] sensors, Parameter parameter) {
-        int statisticsCount = 0;
-        IStatistics[] statistics = new IStatistics[10];
-
-        for (ISensor iSensor : sensors) {
-            if (iSensor instanceof Sensor sensor) {
-                if (sensor.getParameter().equals(parameter)) {
-                    // Division by 0 in Java causes 'Not a Number' (NaN)
-                    if (sensor.getNumMeasurements() == 0) {
-                        statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                                sensor.getId(),
-                                0
-                        ));
-                        continue;
-                    }
-
-                    double sumOfMeasurements = 0;
-                    for (IMeasurement iMeasurement : sensor.getMeasurements()) {
-                        if (iMeasurement instanceof Measurement measurement) {
-                            sumOfMeasurements += measurement.getValue();
-                        }
-                    }
-
-                    statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                            sensor.getId(),
-                            sumOfMeasurements / (double) sensor.getNumMeasurements()
-                    ));
-                }
-            }
+    void readingsChanged(Station station, Sensor sensor) {
+        StatisticsCache cache = statisticsCache;
+        if (cache != null) {
+            cache.invalidate(station.getName(), sensor.getParameter());
         }
-
-        return statistics.clone();
     }
 
     /**
-     * Calculate the minimum of measurements by {@link ISensor sensor}
+     * Get the readings of the sensors of a {@link Station} that the statistics read
      *
-     * @param sensors The array of {@link ISensor[] sensors}
-     * @return Return an array of {@link IStatistics}
+     * @param station    The {@link Station station}
+     * @param parameter  The {@link Parameter parameter} of the sensors or null for every sensor
+     * @param totalsOnly True when only the totals of each sensor will be read
+     * @return Returns the {@link SensorReadings} of each sensor, in the order the sensors were added
+     * @implNote Live views of the sensors, {@link ConcurrentCity} returns snapshots instead
      */
-    private IStatistics[] minOfMeasurementBySensor(ISensor[] sensors, Parameter parameter) {
-        int statisticsCount = 0;
-        IStatistics[] statistics = new IStatistics[10];
-
-        for (ISensor iSensor : sensors) {
-            if (iSensor instanceof Sensor sensor) {
-                if (sensor.getParameter().equals(parameter)) {
-
-                    if (sensor.getNumMeasurements() == 0) {
-                        continue;
-                    }
-
-                    IMeasurement[] measurements = sensor.getMeasurements();
-                    double minValue = measurements[0].getValue();
-                    for (IMeasurement iMeasurement : sensor.getMeasurements()) {
-                        if (iMeasurement instanceof Measurement measurement) {
-                            if (measurement.getValue() < minValue) {
-                                minValue = measurement.getValue();
-                            }
-                        }
-                    }
-
-                    statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                            sensor.getId(),
-                            minValue
-                    ));
-                }
-            }
+    protected SensorReadings[] readingsOf(Station station, Parameter parameter, boolean totalsOnly) {
+        int nSensors = parameter != null ? station.getNumSensors(parameter) : station.getNumSensors();
+        SensorReadings[] readings = new SensorReadings[nSensors];
+        for (int i = 0; i < nSensors; i++) {
+            Sensor sensor = parameter != null ? station.getSensorAt(parameter, i) : station.getSensorAt(i);
+            readings[i] = sensor.getReadings();
         }
+        return readings;
+    }
 
-        return statistics.clone();
+    /**
+     * Get the readings of a {@link Sensor} that the statistics read
+     *
+     * @param station The {@link Station station} of the sensor
+     * @param sensor  The {@link Sensor sensor}
+     * @return Returns the {@link SensorReadings} of the sensor
+     * @implNote The live view of the sensor, {@link ConcurrentCity} returns a snapshot instead
+     */
+    protected SensorReadings readingsOf(Station station, Sensor sensor) {
+        return sensor.getReadings();
     }
 
     /**
-     * @param sensors The array of {@link ISensor[] sensors}
-     * @return Return an array of {@link IStatistics}
+     * Merge the readings of a {@link Sensor} inside a window into an {@link Aggregate}
+     *
+     * @param readings   The {@link SensorReadings readings} of the sensor
+     * @param fromMinute The inclusive start of the window or {@link #NO_START} for no limit
+     * @param toMinute   The exclusive end of the window or {@link #NO_END} for no limit
+     * @param aggregate  The {@link Aggregate aggregate} to merge into
      */
-    private IStatistics[] maxOfMeasurementsBySensor(ISensor[] sensors, Parameter parameter) {
-        int statisticsCount = 0;
-        IStatistics[] statistics = new IStatistics[10];
-
-        for (ISensor iSensor : sensors) {
-            if (iSensor instanceof Sensor sensor) {
-                if (sensor.getParameter().equals(parameter)) {
-                    if (sensor.getNumMeasurements() == 0) {
-                        continue;
-                    }
-
-                    IMeasurement[] measurements = sensor.getMeasurements();
-                    double maxValue = measurements[0].getValue();
-                    for (IMeasurement iMeasurement : sensor.getMeasurements()) {
-                        if (iMeasurement instanceof Measurement measurement) {
-                            if (measurement.getValue() > maxValue) {
-                                maxValue = measurement.getValue();
-                            }
-                        }
-                    }
-
-                    statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                            sensor.getId(),
-                            maxValue
-                    ));
-                }
-            }
+    private static void aggregateInto(SensorReadings readings, long fromMinute, long toMinute, Aggregate aggregate) {
+        if (fromMinute == NO_START && toMinute == NO_END) {
+            readings.aggregateInto(aggregate);
+        } else {
+            readings.aggregateInto(fromMinute, toMinute, aggregate);
         }
-
-        return statistics.clone();
     }
 
     /**
-     * Count the number of measurements by {@link ISensor sensor}
+     * Calculate an {@link AggregationOperator} over the measurements of each {@link ISensor sensor} of a station
      *
-     * @param sensors The array of {@link ISensor[] sensors}
-     * @return Return an array of {@link IStatistics}
+     * @param station             The {@link Station station} of the sensors
+     * @param aggregationOperator The {@link AggregationOperator aggregationOperator} to apply
+     * @param parameter           The {@link Parameter parameter} of the sensors
+     * @param fromMinute          The inclusive start of the window or {@link #NO_START} for no limit
+     * @param toMinute            The exclusive end of the window or {@link #NO_END} for no limit
+     * @return Return an array of {@link IStatistics}, one for each sensor
+     * @implNote Without a window AVG and COUNT report sensors without measurements,
+     * with a window only sensors with measurements inside it are reported
      */
-    private IStatistics[] countOfMeasurementsBySensor(ISensor[] sensors, Parameter parameter) {
+    private IStatistics[] computeStatisticsBySensor(Station station, AggregationOperator aggregationOperator,
+                                                    Parameter parameter, long fromMinute, long toMinute) {
+        boolean windowed = fromMinute != NO_START || toMinute != NO_END;
+        boolean skipEmpty = windowed ||
+                aggregationOperator == AggregationOperator.MIN ||
+                aggregationOperator == AggregationOperator.MAX;
+
+        if (parameter == null) {
+            return new IStatistics[0];
+        }
+
+        // One slot per sensor, trimmed once at the end when some are skipped
         int statisticsCount = 0;
-        IStatistics[] statistics = new IStatistics[10];
-
-        for (ISensor iSensor : sensors) {
-            if (iSensor instanceof Sensor sensor) {
-                if (sensor.getParameter().equals(parameter)) {
-                    statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                            sensor.getId(),
-                            sensor.getNumMeasurements()
-                    ));
-                }
+        SensorReadings[] readings = readingsOf(station, parameter, !windowed);
+        IStatistics[] statistics = new IStatistics[readings.length];
+        Aggregate aggregate = new Aggregate();
+        for (int i = 0; i < statistics.length; i++) {
+            Sensor sensor = readings[i].getSensor();
+            aggregate.clear();
+            aggregateInto(readings[i], fromMinute, toMinute, aggregate);
+            if (aggregate.getCount() == 0 && skipEmpty) {
+                continue;
             }
+
+            statistics[statisticsCount++] = new Statistic(
+                    sensor.getId(),
+                    aggregate.get(aggregationOperator)
+            );
         }
 
-        return statistics.clone();
+        return statisticsCount == statistics.length ? statistics : Arrays.copyOf(statistics, statisticsCount);
     }
 
-    private ISensor[] addSensor(ISensor[] srcArray, int sensorCount, ISensor sensor) {
-        if (srcArray.length == sensorCount) {
-            ISensor[] destArray = new ISensor[srcArray.length * 2];
-            System.arraycopy(srcArray, 0, destArray, 0, sensorCount);
-            destArray[sensorCount] = sensor;
-            return destArray;
+    /**
+     * Calculate an {@link AggregationOperator} over each {@link ISensor sensor} of a station, through the cache
+     *
+     * @param station             The {@link Station station} of the sensors
+     * @param aggregationOperator The {@link AggregationOperator aggregationOperator} to apply
+     * @param parameter           The {@link Parameter parameter} of the sensors
+     * @param fromMinute          The inclusive start of the window or {@link #NO_START} for no limit
+     * @param toMinute            The exclusive end of the window or {@link #NO_END} for no limit
+     * @return Return an array of {@link IStatistics}, one for each sensor
+     */
+    private IStatistics[] statisticsBySensor(Station station, AggregationOperator aggregationOperator,
+                                             Parameter parameter, long fromMinute, long toMinute) {
+        StatisticsCache cache = statisticsCache;
+        if (cache == null || aggregationOperator == null || parameter == null) {
+            return computeStatisticsBySensor(station, aggregationOperator, parameter, fromMinute, toMinute);
         }
 
-        srcArray[sensorCount] = sensor;
-        return srcArray;
+        // Read before computing, a change made meanwhile leaves the cached result stale
+        long stamp = cache.currentStamp();
+        IStatistics[] statistics = cache.get(aggregationOperator, parameter, station.getName(), fromMinute, toMinute);
+        if (statistics == null) {
+            statistics = computeStatisticsBySensor(station, aggregationOperator, parameter, fromMinute, toMinute);
+            cache.put(aggregationOperator, parameter, station.getName(), fromMinute, toMinute, statistics, stamp);
+        }
+        return statistics;
     }
 
     /**
-     * Adds an element {@link IStatistics} to an existing array and increments the size of that array by one
+     * Calculate an {@link AggregationOperator} over each {@link IStation station}, through the cache
      *
-     * @param srcArray  The {@link IStatistics srcArray} to grow
-     * @param statistic The {@link IStatistics statistic} to add to the array
-     * @return Returns an array of {@link IStatistics}
+     * @param aggregationOperator The {@link AggregationOperator aggregationOperator} to apply
+     * @param parameter           The {@link Parameter parameter} of the sensors
+     * @param fromMinute          The inclusive start of the window or {@link #NO_START} for no limit
+     * @param toMinute            The exclusive end of the window or {@link #NO_END} for no limit
+     * @return Return an array of {@link IStatistics}, one for each station with measurements
      */
-    private IStatistics[] addStatistic(IStatistics[] srcArray, int statisticsCount, IStatistics statistic) {
-        if (srcArray.length == statisticsCount) {
-            IStatistics[] destArray = new IStatistics[srcArray.length * 2];
-            System.arraycopy(srcArray, 0, destArray, 0, statisticsCount);
-            destArray[statisticsCount] = statistic;
-            return destArray;
+    private IStatistics[] statisticsByStation(AggregationOperator aggregationOperator,
+                                              Parameter parameter, long fromMinute, long toMinute) {
+        StatisticsCache cache = statisticsCache;
+        if (cache == null || aggregationOperator == null || parameter == null) {
+            return computeStatisticsByStation(aggregationOperator, parameter, fromMinute, toMinute);
         }
 
-        srcArray[statisticsCount] = statistic;
-        return srcArray;
+        long stamp = cache.currentStamp();
+        IStatistics[] statistics = cache.get(aggregationOperator, parameter, null, fromMinute, toMinute);
+        if (statistics == null) {
+            statistics = computeStatisticsByStation(aggregationOperator, parameter, fromMinute, toMinute);
+            cache.put(aggregationOperator, parameter, null, fromMinute, toMinute, statistics, stamp);
+        }
+        return statistics;
     }
 
     /**
@@ -283,12 +299,23 @@ public class City implements ICity, ICityStatistics {
             return false;
         }
 
+        // Logged before it's added, a station the log refuses is never added
+        if (writeAheadLog != null) {
+            try {
+                writeAheadLog.stationAdded(stationName);
+            } catch (IOException e) {
+                throw new CityException("Write-Ahead Log failed: " + e.getMessage());
+            }
+        }
+
         // If array is full then grow array
         if (nStations == stations.length) {
             grow();
         }
 
-        stations[nStations++] = new Station(stationName);
+        Station station = new Station(stationName, this);
+        stations[nStations++] = station;
+        stationsByName.put(stationName, station);
         return true;
     }
 
@@ -314,12 +341,83 @@ public class City implements ICity, ICityStatistics {
             throw new StationException("[City] Sensor ID can't have more or less than 10 characters");
         }
 
-        ISensor sensor = getSensorAtStationById(station, sensorId);
-        if (sensor != null) {
+        if (station.getSensor(sensorId) != null) {
             throw new StationException("Sensor doesn't exist");
         }
 
-        return station.addSensor(new Sensor(sensorId, cartesianCoordinates, geographicCoordinates));
+        // Created first so an invalid sensor is never logged, and logged before it's added
+        Sensor sensor = createSensor(sensorId, cartesianCoordinates, geographicCoordinates);
+        if (writeAheadLog != null) {
+            try {
+                writeAheadLog.sensorAdded(stationName, sensorId, cartesianCoordinates, geographicCoordinates);
+            } catch (IOException e) {
+                throw new CityException("Write-Ahead Log failed: " + e.getMessage());
+            }
+        }
+
+        return station.addSensor(sensor);
+    }
+
+    /**
+     * Cache the results of {@link #getMeasurementsByStation} and {@link #getMeasurementsBySensor(String,
+     * AggregationOperator, Parameter)}, with and without dates, until their readings change
+     *
+     * @param capacity The maximum number of cached results or 0 to stop caching
+     * @apiNote Readings added through the city and its stations invalidate the results that include them.
+     * Readings added directly to a {@link Sensor} are not seen by the cache.
+     */
+    public void setStatisticsCache(int capacity) {
+        statisticsCache = capacity == 0 ? null : new StatisticsCache(capacity);
+    }
+
+    /**
+     * Get the {@link StatisticsCache} of the city, with its hit, miss, eviction and invalidation counters
+     *
+     * @return Returns the {@link StatisticsCache} or null if the results aren't cached
+     */
+    public StatisticsCache getStatisticsCache() {
+        return statisticsCache;
+    }
+
+    /**
+     * Log every station, sensor and reading added from now on through the city
+     *
+     * @param writeAheadLog The {@link WriteAheadLog log}, already replayed, or null to stop logging
+     * @apiNote Stations and sensors changed directly, not through the city, are not logged
+     */
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    /**
+     * Keep the readings of the sensors added from now on in a memory-mapped {@link MeasurementArchive}
+     *
+     * @param archive The {@link MeasurementArchive archive} or null to keep the readings in the heap
+     * @apiNote Call it before adding sensors, the sensors already added keep their storage.
+     * The archive can be shared by several cities, close it once none of them is used anymore.
+     */
+    public void setArchive(MeasurementArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Create a {@link Sensor} with the storage chosen by {@link #setArchive(MeasurementArchive)}
+     *
+     * @param sensorId              The Sensor Id
+     * @param cartesianCoordinates  An interface of {@link ICartesianCoordinates}
+     * @param geographicCoordinates An interface of {@link IGeographicCoordinates}
+     * @return Returns the new {@link Sensor}
+     */
+    private Sensor createSensor(String sensorId,
+                                ICartesianCoordinates cartesianCoordinates,
+                                IGeographicCoordinates geographicCoordinates
+    ) throws SensorException {
+        if (archive == null) {
+            return new Sensor(sensorId, cartesianCoordinates, geographicCoordinates);
+        }
+
+        // Nothing is allocated in the archive until the first reading
+        return new Sensor(sensorId, cartesianCoordinates, geographicCoordinates, new MappedMeasurementStore(archive));
     }
 
     /**
@@ -333,7 +431,43 @@ public class City implements ICity, ICityStatistics {
             throw new CityException("Station Name can't be NULL");
         }
 
-        IStation station = getStationByName(stationName);
+        // Looked up again by the overload, the missing station is reported before the unit and the date
+        if (getStation(stationName) == null) {
+            throw new CityException("Can't find any Station with that name");
+        }
+
+        if (unit == null || localDateTime == null) {
+            throw new StationException("Parameters can't be NULL");
+        }
+
+        return addMeasurement(stationName, sensorId, value, UnitResolver.resolve(unit),
+                Measurement.toEpochMinute(localDateTime));
+    }
+
+    /**
+     * Add a reading with an already resolved unit and time
+     *
+     * @param stationName The name of the station
+     * @param sensorId    The id of the sensor
+     * @param value       The read value
+     * @param unit        The {@link Unit unit} of the value, null for a unit that couldn't be resolved
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @return Returns true if the reading was stored, false if the sensor already had it
+     * @throws CityException        Throws this exception if the station doesn't exist or the {@link WriteAheadLog} fails
+     * @throws StationException     Throws this exception if the id is null or the sensor doesn't exist
+     * @throws SensorException      Throws this exception if the unit isn't the unit of the sensor
+     * @throws MeasurementException Throws this exception if the value is out of bounds
+     * @apiNote Same checks as {@link #addMeasurement(String, String, double, String, LocalDateTime)}
+     * without any string or date work, resolve feed strings once with {@link UnitResolver#resolve(String)}
+     */
+    public boolean addMeasurement(String stationName, String sensorId, double value,
+                                  Unit unit, long epochMinute
+    ) throws CityException, StationException, SensorException, MeasurementException {
+        if (stationName == null) {
+            throw new CityException("Station Name can't be NULL");
+        }
+
+        Station station = stationsByName.get(stationName);
         if (station == null) {
             throw new CityException("Can't find any Station with that name");
         }
@@ -341,7 +475,90 @@ public class City implements ICity, ICityStatistics {
         /* Exceptions from Stations, Sensors and Measurement caught here
          * This also checks if the collections stores the measurement
          */
-        return station.addMeasurement(sensorId, value, localDateTime, unit);
+        if (writeAheadLog == null) {
+            return station.addMeasurement(sensorId, value, epochMinute, unit);
+        }
+
+        Sensor sensor = station.checkMeasurement(sensorId, value, epochMinute, unit);
+        if (sensor == null) {
+            return false;
+        }
+
+        // Logged once validated and before it's added, a reading the log refuses is never seen
+        try {
+            writeAheadLog.measurementAdded(stationName, sensorId, epochMinute, value);
+        } catch (IOException e) {
+            throw new CityException("Write-Ahead Log failed: " + e.getMessage());
+        }
+
+        station.applyMeasurement(sensor, value, epochMinute);
+        return true;
+    }
+
+    /**
+     * Add a batch of readings
+     *
+     * @param batch The {@link MeasurementBatch batch} of readings
+     * @return Returns the {@link MeasurementBatch.Status status} of each row
+     * @throws CityException Throws this exception if the batch is null or the {@link WriteAheadLog} fails,
+     *                       the rows before the failure stay added
+     * @apiNote Unlike {@link #addMeasurement} invalid rows don't throw, their status tells what is wrong.
+     * The station and sensor are looked up once for each group of consecutive rows with the same ones.
+     */
+    public MeasurementBatch.Status[] addMeasurements(MeasurementBatch batch) throws CityException {
+        if (batch == null) {
+            throw new CityException("Batch can't be NULL");
+        }
+
+        MeasurementBatch.Status[] status = new MeasurementBatch.Status[batch.size()];
+        for (int row = 0; row < batch.size(); ) {
+            int end = batch.groupEnd(row, true);
+            addMeasurementGroup(batch, row, end, status);
+            row = end;
+        }
+
+        if (writeAheadLog != null) {
+            try {
+                writeAheadLog.batchEnded();
+            } catch (IOException e) {
+                throw new CityException("Write-Ahead Log failed: " + e.getMessage());
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Add a group of rows with the same station and sensor of a {@link MeasurementBatch}
+     *
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row of the group
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch, filled for the group
+     */
+    protected void addMeasurementGroup(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status)
+            throws CityException {
+        Station station = stationsByName.get(batch.getStationName(from));
+        if (station == null) {
+            for (int row = from; row < to; row++) {
+                status[row] = MeasurementBatch.Status.STATION_NOT_FOUND;
+            }
+            return;
+        }
+
+        if (writeAheadLog == null) {
+            station.addMeasurements(batch, from, to, status);
+            return;
+        }
+
+        // Logged before they're added, a row repeated in the group is logged twice and replayed once
+        if (station.checkMeasurements(batch, from, to, status) > 0) {
+            try {
+                writeAheadLog.measurementsAdded(batch, from, to, status);
+            } catch (IOException e) {
+                throw new CityException("Write-Ahead Log failed: " + e.getMessage());
+            }
+            station.applyMeasurements(batch, from, to, status);
+        }
     }
 
     /**
@@ -349,9 +566,10 @@ public class City implements ICity, ICityStatistics {
      */
     @Override
     public IStation[] getStations() {
-        if (nStations == 0) return new IStation[]{}.clone();
-
-        return stations.clone();
+        // Exactly sized, the caller can't see or change the free slots
+        IStation[] copy = new IStation[nStations];
+        System.arraycopy(stations, 0, copy, 0, nStations);
+        return copy;
     }
 
     /**
@@ -369,7 +587,7 @@ public class City implements ICity, ICityStatistics {
     // TODO adicionar ao Menu
     public ISensor[] getSensorsByStation(String stationName) {
         IStation station = getStationByName(stationName);
-        return (station != null) ? station.getSensors().clone() : new ISensor[]{}.clone();
+        return (station != null) ? station.getSensors() : new ISensor[]{};
     }
 
     /**
@@ -377,208 +595,99 @@ public class City implements ICity, ICityStatistics {
      */
     @Override
     public IMeasurement[] getMeasurementsBySensor(String sensorId) {
-        for (IStation iStation : stations) {
-            if (iStation instanceof Station station) {
-                for (ISensor iSensor : station.getSensors()) {
-                    if (iSensor instanceof Sensor sensor) {
-                        if (sensor.getId().equals(sensorId)) {
-                            return sensor.getMeasurements();
-                        }
-                    }
-                }
-            }
-        }
-
-        return null;
+        SensorLocation location = sensorsById.get(sensorId);
+        return (location != null) ? readingsOf(location.station, location.sensor).getMeasurements() : null;
     }
 
-    //TODO comentar
-    private IStatistics[] avgOfMeasurementsByStation(IStation[] stations, Parameter parameter,
-                                                     LocalDateTime startDate, LocalDateTime endDate) {
-        int statisticsCount = 0;
-        IStatistics[] statistics = new IStatistics[10];
-
-        for (IStation iStation : stations) {
-            if (iStation instanceof Station station) {
-
-                IStatistics[] measurements;
-                if (startDate == null && endDate == null) {
-                    measurements = avgOfMeasurementsBySensor(station.getSensors(), parameter);
-                } else {
-                    ISensor[] sensorsBetweenDates = getSensorsBetweenDates(station.getSensors(), startDate, endDate);
-                    measurements = avgOfMeasurementsBySensor(sensorsBetweenDates, parameter);
-                }
-
-                if (measurements[0] == null) continue;
-                double sum = 0;
-
-                for (IStatistics iStatistics : measurements) {
-                    if (iStatistics instanceof Statistic avg) {
-                        sum += avg.getValue();
-                    }
-                }
-
-                statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                        station.getName(),
-                        sum / (double) measurements.length
-                ));
-            }
-        }
-
-        return statistics.clone();
+    /**
+     * Get every {@link ISensor sensor} of a {@link Parameter}
+     *
+     * @param parameter The {@link Parameter parameter} of the sensors
+     * @return Returns an exactly sized array with the sensors of every station, in the order they were added
+     */
+    public ISensor[] getSensorsByParameter(Parameter parameter) {
+        ISensor[] copy = new ISensor[sensorsByParameter.size(parameter.ordinal())];
+        sensorsByParameter.copyInto(parameter.ordinal(), copy);
+        return copy;
     }
 
-    private IStatistics[] minOfMeasurementsByStation(IStation[] stations, Parameter parameter,
-                                                     LocalDateTime startDate, LocalDateTime endDate) {
-        int statisticsCount = 0;
-        IStatistics[] statistics = new IStatistics[10];
-
-        for (IStation iStation : stations) {
-            if (iStation instanceof Station station) {
-
-                IStatistics[] measurements;
-                if (startDate == null && endDate == null) {
-                    measurements = avgOfMeasurementsBySensor(station.getSensors(), parameter);
-                } else {
-                    ISensor[] sensorsBetweenDates = getSensorsBetweenDates(station.getSensors(), startDate, endDate);
-                    measurements = avgOfMeasurementsBySensor(sensorsBetweenDates, parameter);
-                }
-
-                if (measurements[0] == null) continue;
-                double min = measurements[0].getValue();
-
-                for (IStatistics iStatistics : measurements) {
-                    if (iStatistics instanceof Statistic avg) {
-                        if (avg.getValue() < min) {
-                            min = avg.getValue();
-                        }
-                    }
-                }
-
-                statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                        station.getName(),
-                        min / measurements.length
-                ));
-            }
-        }
-
-        return statistics.clone();
+    /**
+     * Get every {@link ISensor sensor} of a {@link SensorType}
+     *
+     * @param sensorType The {@link SensorType sensorType} of the sensors
+     * @return Returns an exactly sized array with the sensors of every station, in the order they were added
+     */
+    public ISensor[] getSensorsByType(SensorType sensorType) {
+        ISensor[] copy = new ISensor[sensorsByType.size(sensorType.ordinal())];
+        sensorsByType.copyInto(sensorType.ordinal(), copy);
+        return copy;
     }
 
-    private IStatistics[] maxOfMeasurementsByStation(IStation[] stations, Parameter parameter,
-                                                     LocalDateTime startDate, LocalDateTime endDate) {
-        int statisticsCount = 0;
-        IStatistics[] statistics = new IStatistics[10];
-
-        for (IStation iStation : stations) {
-            if (iStation instanceof Station station) {
-
-                IStatistics[] measurements;
-                if (startDate == null && endDate == null) {
-                    measurements = avgOfMeasurementsBySensor(station.getSensors(), parameter);
-                } else {
-                    ISensor[] sensorsBetweenDates = getSensorsBetweenDates(station.getSensors(), startDate, endDate);
-                    measurements = avgOfMeasurementsBySensor(sensorsBetweenDates, parameter);
-                }
-
-                if (measurements[0] == null) continue;
-                double max = measurements[0].getValue();
-
-                for (IStatistics iStatistics : measurements) {
-                    if (iStatistics instanceof Statistic avg) {
-                        if (avg.getValue() > max) {
-                            max = avg.getValue();
-                        }
-                    }
-                }
-
-                statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                        station.getName(),
-                        max / measurements.length
-                ));
-            }
-        }
-
-        return statistics.clone();
+    /**
+     * Finds the {@link IStation station} of a {@link ISensor sensor}
+     *
+     * @param sensorId The {@link String sensorId} to look for
+     * @return Returns the {@link IStation} of the sensor or null if there is no sensor with that id
+     */
+    public IStation getStationBySensor(String sensorId) {
+        SensorLocation location = sensorsById.get(sensorId);
+        return (location != null) ? location.station : null;
     }
 
-    private IStatistics[] countOfMeasurementsByStation(IStation[] stations, Parameter parameter,
-                                                       LocalDateTime startDate, LocalDateTime endDate) {
-        int statisticsCount = 0;
-        IStatistics[] statistics = new IStatistics[10];
-
-        for (IStation iStation : stations) {
-            if (iStation instanceof Station station) {
-
-                int measurementsByStation = 0;
-                for (ISensor iSensor : station.getSensors()) {
-                    if (iSensor instanceof Sensor sensor) {
-                        if (sensor.getParameter().equals(parameter)) {
-                            if (startDate == null && endDate == null) {
-                                measurementsByStation += sensor.getNumMeasurements();
-                            } else {
-                                IMeasurement[] measurements = sensor.getMeasurements();
-                                for (IMeasurement iMeasurement : measurements) {
-                                    if (iMeasurement instanceof Measurement measurement) {
-                                        if (isMeasurementBetweenDates(measurement, startDate, endDate)) {
-                                            measurementsByStation++;
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-
-                // If it's still 0 this station does not have any measurements stored
-                if (measurementsByStation == 0) continue;
-
-                statistics = addStatistic(statistics, statisticsCount++, new Statistic(
-                        station.getName(),
-                        measurementsByStation
-                ));
-            }
-        }
-
-        return statistics.clone();
-    }
 
     /**
-     * Get an array of {@link Sensor} between dates.
+     * Merge the readings of every {@link Sensor} of a {@link Station} with a {@link Parameter} inside a window
      *
-     * @param sensors   The array of {@link Sensor sensors}.
-     * @param startDate The {@link LocalDateTime startDate}.
-     * @param endDate   The {@link LocalDateTime endDate}.
-     * @return Return an array of compatible sensors between specified dates.
-     */
-    private ISensor[] getSensorsBetweenDates(ISensor[] sensors, LocalDateTime startDate, LocalDateTime endDate) {
-        int sensorCount = 0;
-        ISensor[] sensorsBetweenDates = new ISensor[10];
-        for (ISensor iSensor : sensors) {
-            if (iSensor instanceof Sensor sensor) {
-                for (IMeasurement iMeasurement : sensor.getMeasurements()) {
-                    if (iMeasurement instanceof Measurement measurement) {
-                        if (isMeasurementBetweenDates(measurement, startDate, endDate)) {
-                            sensorsBetweenDates = addSensor(sensorsBetweenDates, sensorCount, sensor);
-                        }
-                    }
-                }
-            }
+     * @param station    The {@link Station station}
+     * @param parameter  The {@link Parameter parameter} of the sensors
+     * @param fromMinute The inclusive start of the window or {@link #NO_START} for no limit
+     * @param toMinute   The exclusive end of the window or {@link #NO_END} for no limit
+     * @param aggregate  The {@link Aggregate aggregate} to merge into
+     */
+    private void aggregateInto(Station station, Parameter parameter, long fromMinute, long toMinute,
+                               Aggregate aggregate) {
+        boolean totalsOnly = fromMinute == NO_START && toMinute == NO_END;
+        for (SensorReadings readings : readingsOf(station, parameter, totalsOnly)) {
+            aggregateInto(readings, fromMinute, toMinute, aggregate);
         }
-
-        return sensorsBetweenDates.clone();
     }
 
     /**
-     * Verify if a {@link Measurement} is between specified dates.
+     * Calculate an {@link AggregationOperator} over the measurements of each {@link IStation station}
      *
-     * @param measurement The {@link Measurement measurement}.
-     * @param startDate   The {@link LocalDateTime startDate} limit.
-     * @param endDate     The {@link LocalDateTime endDate} limit.
-     * @return Returns true if valid or false otherwise
+     * @param aggregationOperator The {@link AggregationOperator aggregationOperator} to apply
+     * @param parameter           The {@link Parameter parameter} of the sensors
+     * @param fromMinute          The inclusive start of the window or {@link #NO_START} for no limit
+     * @param toMinute            The exclusive end of the window or {@link #NO_END} for no limit
+     * @return Return an array of {@link IStatistics}, one for each station with measurements
+     * @implNote The measurements of every sensor of the station with the parameter are aggregated together
      */
-    private boolean isMeasurementBetweenDates(Measurement measurement, LocalDateTime startDate, LocalDateTime endDate) {
-        return measurement.getTime().compareTo(startDate) > 0 && measurement.getTime().compareTo(endDate) < 0;
+    private IStatistics[] computeStatisticsByStation(AggregationOperator aggregationOperator,
+                                                     Parameter parameter, long fromMinute, long toMinute) {
+        if (parameter == null) {
+            return new IStatistics[0];
+        }
+
+        // One slot per station, trimmed once at the end when some are skipped
+        int statisticsCount = 0;
+        IStatistics[] statistics = new IStatistics[nStations];
+        Aggregate aggregate = new Aggregate();
+
+        for (int i = 0; i < nStations; i++) {
+            Station station = stations[i];
+            aggregate.clear();
+            aggregateInto(station, parameter, fromMinute, toMinute, aggregate);
+
+            // If it's still 0 this station does not have any measurements stored
+            if (aggregate.getCount() == 0) continue;
+
+            statistics[statisticsCount++] = new Statistic(
+                    station.getName(),
+                    aggregate.get(aggregationOperator)
+            );
+        }
+
+        return statisticsCount == statistics.length ? statistics : Arrays.copyOf(statistics, statisticsCount);
     }
 
     /**
@@ -587,17 +696,12 @@ public class City implements ICity, ICityStatistics {
     @Override
     public IStatistics[] getMeasurementsByStation(AggregationOperator aggregationOperator, Parameter parameter,
                                                   LocalDateTime startDate, LocalDateTime endDate) {
-        IStatistics[] statistics;
-
-        //TODO: Aqui
-        statistics = switch (aggregationOperator) {
-            case AVG -> avgOfMeasurementsByStation(stations, parameter, startDate, endDate);
-            case MIN -> minOfMeasurementsByStation(stations, parameter, startDate, endDate);
-            case MAX -> maxOfMeasurementsByStation(stations, parameter, startDate, endDate);
-            case COUNT -> countOfMeasurementsByStation(stations, parameter, startDate, endDate);
-        };
+        if (startDate == null || endDate == null) {
+            return getMeasurementsByStation(aggregationOperator, parameter);
+        }
 
-        return statistics.clone();
+        return statisticsByStation(aggregationOperator, parameter,
+                Measurement.firstMinuteAfter(startDate), Measurement.firstMinuteNotBefore(endDate));
     }
 
     /**
@@ -605,16 +709,7 @@ public class City implements ICity, ICityStatistics {
      */
     @Override
     public IStatistics[] getMeasurementsByStation(AggregationOperator aggregationOperator, Parameter parameter) {
-        IStatistics[] statistics;
-
-        statistics = switch (aggregationOperator) {
-            case AVG -> avgOfMeasurementsByStation(stations, parameter, null, null);
-            case MIN -> minOfMeasurementsByStation(stations, parameter, null, null);
-            case MAX -> maxOfMeasurementsByStation(stations, parameter, null, null);
-            case COUNT -> countOfMeasurementsByStation(stations, parameter, null, null);
-        };
-
-        return statistics.clone();
+        return statisticsByStation(aggregationOperator, parameter, NO_START, NO_END);
     }
 
     /**
@@ -623,31 +718,21 @@ public class City implements ICity, ICityStatistics {
     @Override
     public IStatistics[] getMeasurementsBySensor(String stationName, AggregationOperator aggregationOperator,
                                                  Parameter parameter, LocalDateTime startDate, LocalDateTime endDate) {
-        IStatistics[] statistics = new IStatistics[10];
-
         if (stationName == null) {
-            return statistics.clone();
+            return new IStatistics[0];
         }
 
         if (startDate == null || endDate == null) {
             return getMeasurementsBySensor(stationName, aggregationOperator, parameter);
         }
 
-        IStation station = getStationByName(stationName);
+        Station station = stationsByName.get(stationName);
         if (station == null) {
-            return statistics.clone();
+            return new IStatistics[0];
         }
 
-        ISensor[] sensorsBetweenDates = getSensorsBetweenDates(station.getSensors(), startDate, endDate);
-
-        statistics = switch (aggregationOperator) {
-            case AVG -> avgOfMeasurementsBySensor(sensorsBetweenDates, parameter);
-            case COUNT -> countOfMeasurementsBySensor(sensorsBetweenDates, parameter);
-            case MAX -> maxOfMeasurementsBySensor(sensorsBetweenDates, parameter);
-            case MIN -> minOfMeasurementBySensor(sensorsBetweenDates, parameter);
-        };
-
-        return statistics.clone();
+        return statisticsBySensor(station, aggregationOperator, parameter,
+                Measurement.firstMinuteAfter(startDate), Measurement.firstMinuteNotBefore(endDate));
     }
 
     /**
@@ -660,20 +745,120 @@ public class City implements ICity, ICityStatistics {
             throw new IllegalArgumentException("None of the method parameters can be null");
         }
 
-        IStatistics[] statistics = new IStatistics[10];
-        IStation station = getStationByName(stationName);
+        Station station = stationsByName.get(stationName);
         if (station == null) {
-            return statistics.clone();
+            return new IStatistics[0];
+        }
+
+        return statisticsBySensor(station, aggregationOperator, parameter, NO_START, NO_END);
+    }
+
+    /**
+     * Compute several statistics of the same readings in a single pass
+     *
+     * @param query The {@link StatisticsQuery query} with the operators and filters
+     * @return Returns a {@link StatisticsTable} with a column per operator, empty if the station doesn't exist
+     * @implNote AVG, MIN, MAX, COUNT and SUM all come from one {@link Aggregate} per row, built from the buckets.
+     * STDDEV and the percentiles also copy the readings of the row once and sort them.
+     */
+    public StatisticsTable query(StatisticsQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query can't be NULL");
         }
 
-        statistics = switch (aggregationOperator) {
-            case AVG -> avgOfMeasurementsBySensor(station.getSensors(), parameter);
-            case MIN -> minOfMeasurementBySensor(station.getSensors(), parameter);
-            case MAX -> maxOfMeasurementsBySensor(station.getSensors(), parameter);
-            case COUNT -> countOfMeasurementsBySensor(station.getSensors(), parameter);
-        };
+        long fromMinute = NO_START;
+        long toMinute = NO_END;
+        if (query.getStartDate() != null && query.getEndDate() != null) {
+            fromMinute = Measurement.firstMinuteAfter(query.getStartDate());
+            toMinute = Measurement.firstMinuteNotBefore(query.getEndDate());
+        }
+
+        StatisticsTable table = new StatisticsTable(query.getOperators());
+        if (query.getStation() != null) {
+            Station station = stationsByName.get(query.getStation());
+            if (station != null) {
+                queryStation(station, query, fromMinute, toMinute, table);
+            }
+            return table;
+        }
+
+        for (int i = 0; i < nStations; i++) {
+            queryStation(stations[i], query, fromMinute, toMinute, table);
+        }
+        return table;
+    }
 
-        return statistics.clone();
+    /**
+     * Add the rows of a {@link Station} to the result of a {@link StatisticsQuery}
+     *
+     * @param station    The {@link Station station}
+     * @param query      The {@link StatisticsQuery query}
+     * @param fromMinute The inclusive start of the window or {@link #NO_START} for no limit
+     * @param toMinute   The exclusive end of the window or {@link #NO_END} for no limit
+     * @param table      The {@link StatisticsTable table} to add the rows to
+     */
+    private void queryStation(Station station, StatisticsQuery query, long fromMinute, long toMinute,
+                              StatisticsTable table) {
+        Parameter parameter = query.getParameter();
+        boolean totalsOnly = fromMinute == NO_START && toMinute == NO_END && !query.needsReadings();
+
+        if (query.isBySensor()) {
+            SensorReadings[] readings = readingsOf(station, parameter, totalsOnly);
+            for (int i = 0; i < readings.length; i++) {
+                Sensor sensor = readings[i].getSensor();
+                addQueryRow(station, sensor, sensor.getParameter(), readings, i, i + 1,
+                        query, fromMinute, toMinute, table);
+            }
+        } else if (parameter != null) {
+            SensorReadings[] readings = readingsOf(station, parameter, totalsOnly);
+            addQueryRow(station, null, parameter, readings, 0, readings.length, query, fromMinute, toMinute, table);
+        } else {
+            for (Parameter each : Parameter.values()) {
+                SensorReadings[] readings = readingsOf(station, each, totalsOnly);
+                addQueryRow(station, null, each, readings, 0, readings.length, query, fromMinute, toMinute, table);
+            }
+        }
+    }
+
+    /**
+     * Compute a row of a {@link StatisticsQuery}
+     *
+     * @param station    The {@link Station station} of the row
+     * @param sensor     The {@link Sensor sensor} of the row or null for every sensor of the station with the parameter
+     * @param parameter  The {@link Parameter parameter} of the row
+     * @param readings   The {@link SensorReadings readings} of the sensors
+     * @param from       The first readings of the row
+     * @param to         The position after the last readings of the row
+     * @param query      The {@link StatisticsQuery query}
+     * @param fromMinute The inclusive start of the window or {@link #NO_START} for no limit
+     * @param toMinute   The exclusive end of the window or {@link #NO_END} for no limit
+     * @param table      The {@link StatisticsTable table} to add the row to
+     */
+    private void addQueryRow(Station station, Sensor sensor, Parameter parameter, SensorReadings[] readings,
+                             int from, int to, StatisticsQuery query, long fromMinute, long toMinute,
+                             StatisticsTable table) {
+        Aggregate aggregate = new Aggregate();
+        for (int i = from; i < to; i++) {
+            aggregateInto(readings[i], fromMinute, toMinute, aggregate);
+        }
+
+        if (aggregate.getCount() == 0) return;
+
+        double[] values = null;
+        if (query.needsReadings()) {
+            values = new double[aggregate.getCount()];
+            int copied = 0;
+            for (int i = from; i < to; i++) {
+                copied = readings[i].copyValues(fromMinute, toMinute, values, copied);
+            }
+            Arrays.sort(values);
+        }
+
+        double[] row = new double[query.getNumOperators()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = query.getOperator(i).apply(aggregate, values);
+        }
+        table.addRow(station.getName(), sensor != null ? sensor.getId() : null, parameter, row);
     }
 
     /**
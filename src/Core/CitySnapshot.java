@@ -0,0 +1,483 @@
+package Core;
+
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import edu.ma02.core.exceptions.CityException;
+import edu.ma02.core.exceptions.SensorException;
+import edu.ma02.core.exceptions.StationException;
+import edu.ma02.core.interfaces.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Binary snapshot of a whole {@link City}, saved and reloaded without parsing JSON again
+ *
+ * @implNote Layout of a snapshot, numbers are big endian:
+ * <ul>
+ *     <li>Header: magic number, version and city name</li>
+ *     <li>String table: every distinct station name and sensor id, referenced by position afterwards</li>
+ *     <li>Stations in city order, each with its sensors in station order</li>
+ *     <li>Sensors: id reference, coordinates and readings in insertion order, the first time as a long,
+ *     the following ones as zig-zag variable length deltas in minutes and then the raw double values</li>
+ * </ul>
+ * Readings are restored in the order they were added, so the reloaded city answers every query
+ * with exactly the same values as the saved one.
+ */
+public class CitySnapshot {
+    private static final int MAGIC = 0x50504353;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final byte HAS_CARTESIAN = 1;
+    private static final byte HAS_GEOGRAPHIC = 2;
+
+    private CitySnapshot() {
+    }
+
+    /**
+     * Buffered writer over a {@link FileChannel}
+     */
+    private static class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor for {@link Output}
+         *
+         * @param path The {@link Path path} of the file, replaced if it exists
+         */
+        private Output(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        /**
+         * Write the buffered bytes to the channel
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Make room in the buffer
+         *
+         * @param bytes The number of bytes about to be written
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        private void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        private void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        private void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * Write a signed number in 1 to 10 bytes, small absolute values take less bytes
+         *
+         * @param value The number to write
+         */
+        private void putVarLong(long value) throws IOException {
+            ensure(10);
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                buffer.put((byte) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+            buffer.put((byte) zigZag);
+        }
+
+        private void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int written = 0; written < bytes.length; ) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                // A checkpoint empties the write-ahead log once the snapshot is saved, so it must be on the disk
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Buffered reader over a {@link FileChannel}
+     */
+    private static class Input implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor for {@link Input}
+         *
+         * @param path The {@link Path path} of the file
+         */
+        private Input(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.flip();
+        }
+
+        /**
+         * Read from the channel until the buffer holds enough bytes
+         *
+         * @param bytes The number of bytes about to be read
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return;
+
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Invalid Snapshot: unexpected end of file");
+                }
+            }
+            buffer.flip();
+        }
+
+        /**
+         * Get the number of bytes left to read
+         *
+         * @return Returns the bytes in the buffer and after it in the file
+         */
+        private long remaining() throws IOException {
+            return buffer.remaining() + channel.size() - channel.position();
+        }
+
+        private byte getByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        private int getInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        private long getLong() throws IOException {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        private double getDouble() throws IOException {
+            ensure(8);
+            return buffer.getDouble();
+        }
+
+        private long getVarLong() throws IOException {
+            long zigZag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = getByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                }
+            }
+            throw new IOException("Invalid Snapshot: malformed time delta");
+        }
+
+        private String getString() throws IOException {
+            int length = getInt();
+            if (length < 0) throw new IOException("Invalid Snapshot: negative string length");
+
+            byte[] bytes = new byte[length];
+            for (int read = 0; read < length; ) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), length - read);
+                buffer.get(bytes, read, chunk);
+                read += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Save every station, sensor and reading of a {@link City}
+     *
+     * @param city The {@link City city} to save
+     * @param path The {@link String path} of the snapshot, replaced if it exists
+     * @apiNote Writers of a {@link ConcurrentCity} must be stopped while it is saved
+     */
+    public static void save(City city, String path) throws IOException {
+        IStation[] stations = city.getStations();
+
+        // Station names and sensor ids in order of first use
+        NameIndex<Integer> references = new NameIndex<>();
+        String[] strings = new String[16];
+        int nStrings = 0;
+        for (IStation station : stations) {
+            ISensor[] sensors = station.getSensors();
+            for (int i = -1; i < sensors.length; i++) {
+                String string = i < 0 ? station.getName() : sensors[i].getId();
+                if (references.get(string) != null) continue;
+
+                if (nStrings == strings.length) {
+                    String[] copy = new String[strings.length * 2];
+                    System.arraycopy(strings, 0, copy, 0, nStrings);
+                    strings = copy;
+                }
+                references.put(string, nStrings);
+                strings[nStrings++] = string;
+            }
+        }
+
+        try (Output output = new Output(Path.of(path))) {
+            output.putInt(MAGIC);
+            output.putInt(VERSION);
+            output.putString(city.getName());
+
+            output.putInt(nStrings);
+            for (int i = 0; i < nStrings; i++) {
+                output.putString(strings[i]);
+            }
+
+            output.putInt(stations.length);
+
+            for (IStation station : stations) {
+                ISensor[] sensors = station.getSensors();
+                int nSensors = 0;
+                for (ISensor sensor : sensors) {
+                    if (sensor instanceof Sensor) nSensors++;
+                }
+
+                output.putInt(references.get(station.getName()));
+                output.putInt(nSensors);
+                for (ISensor sensor : sensors) {
+                    if (sensor instanceof Sensor s) {
+                        writeSensor(output, s, references.get(s.getId()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a {@link Sensor} with its readings
+     *
+     * @param output    The {@link Output output}
+     * @param sensor    The {@link Sensor sensor} to write
+     * @param reference The position of the sensor id in the string table
+     */
+    private static void writeSensor(Output output, Sensor sensor, int reference) throws IOException {
+        ICartesianCoordinates cartesian = sensor.getCartesianCoordinates();
+        IGeographicCoordinates geographic = sensor.getGeographicCoordinates();
+
+        output.putInt(reference);
+        output.putByte((byte) ((cartesian != null ? HAS_CARTESIAN : 0) | (geographic != null ? HAS_GEOGRAPHIC : 0)));
+        if (cartesian != null) {
+            output.putDouble(cartesian.getX());
+            output.putDouble(cartesian.getY());
+            output.putDouble(cartesian.getZ());
+        }
+        if (geographic != null) {
+            output.putDouble(geographic.getLatitude());
+            output.putDouble(geographic.getLongitude());
+        }
+
+        MeasurementStore store = sensor.getMeasurementStore();
+        int size = store.size();
+        output.putInt(size);
+        if (size == 0) return;
+
+        output.putLong(store.getTime(0));
+        for (int i = 1; i < size; i++) {
+            output.putVarLong(store.getTime(i) - store.getTime(i - 1));
+        }
+        for (int i = 0; i < size; i++) {
+            output.putDouble(store.getValue(i));
+        }
+    }
+
+    /**
+     * Load a snapshot into a new {@link City}
+     *
+     * @param path The {@link String path} of the snapshot
+     * @return Returns the loaded {@link City}
+     */
+    public static City load(String path) throws IOException {
+        try (Input input = openSnapshot(path)) {
+            City city = new City(input.getString());
+            loadStations(input, city);
+            return city;
+        }
+    }
+
+    /**
+     * Load a snapshot into an empty {@link City}, such as a {@link ConcurrentCity}
+     *
+     * @param path The {@link String path} of the snapshot
+     * @param city The empty {@link City city} to fill, its name is kept
+     * @apiNote The city must not be used by other threads while it is loaded
+     */
+    public static void load(String path, City city) throws IOException {
+        try (Input input = openSnapshot(path)) {
+            input.getString();
+            loadStations(input, city);
+        }
+    }
+
+    /**
+     * Open a snapshot and check its header
+     *
+     * @param path The {@link String path} of the snapshot
+     * @return Returns the {@link Input} positioned after the version
+     */
+    private static Input openSnapshot(String path) throws IOException {
+        Input input = new Input(Path.of(path));
+        try {
+            if (input.getInt() != MAGIC) {
+                throw new IOException("Invalid Snapshot: not a city snapshot");
+            }
+            if (input.getInt() != VERSION) {
+                throw new IOException("Invalid Snapshot: unsupported version");
+            }
+            return input;
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the string table and every station into a {@link City}
+     *
+     * @param input The {@link Input input} positioned after the city name
+     * @param city  The {@link City city} to fill
+     */
+    private static void loadStations(Input input, City city) throws IOException {
+        int nStrings = input.getInt();
+        if (nStrings < 0) throw new IOException("Invalid Snapshot: negative string count");
+
+        String[] strings = new String[nStrings];
+        for (int i = 0; i < nStrings; i++) {
+            strings[i] = input.getString();
+        }
+
+        try {
+            int nStations = input.getInt();
+            for (int i = 0; i < nStations; i++) {
+                String stationName = stringAt(strings, input.getInt());
+                city.addStation(stationName);
+                IStation station = city.getStation(stationName);
+
+                int nSensors = input.getInt();
+                for (int j = 0; j < nSensors; j++) {
+                    loadSensor(input, city, station, stringAt(strings, input.getInt()));
+                }
+            }
+        } catch (CityException | StationException | SensorException e) {
+            throw new IOException("Invalid Snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read a {@link Sensor} and its readings into a station
+     *
+     * @param input    The {@link Input input} positioned after the sensor id reference
+     * @param city     The {@link City city} that owns the station
+     * @param station  The {@link IStation station} of the sensor
+     * @param sensorId The id of the sensor
+     */
+    private static void loadSensor(Input input, City city, IStation station, String sensorId)
+            throws IOException, CityException, StationException, SensorException {
+        byte flags = input.getByte();
+        ICartesianCoordinates cartesian = null;
+        IGeographicCoordinates geographic = null;
+        if ((flags & HAS_CARTESIAN) != 0) {
+            cartesian = new CartesianCoordinates(input.getDouble(), input.getDouble(), input.getDouble());
+        }
+        if ((flags & HAS_GEOGRAPHIC) != 0) {
+            geographic = new GeographicCoordinates(input.getDouble(), input.getDouble());
+        }
+
+        city.addSensor(station.getName(), sensorId, cartesian, geographic);
+        Sensor sensor = (Sensor) station.getSensor(sensorId);
+
+        int size = input.getInt();
+        if (size < 0) throw new IOException("Invalid Snapshot: negative reading count");
+        if (size == 0) return;
+        // Each reading takes at least a byte of time delta and the 8 bytes of its value
+        if (size > input.remaining() / 9) throw new IOException("Invalid Snapshot: reading count past the end of file");
+
+        long[] times = new long[size];
+        times[0] = input.getLong();
+        for (int i = 1; i < size; i++) {
+            times[i] = times[i - 1] + input.getVarLong();
+        }
+        for (int i = 0; i < size; i++) {
+            sensor.appendElement(times[i], input.getDouble());
+        }
+        city.readingsChanged((Station) station, sensor);
+    }
+
+    /**
+     * Get a string of the string table
+     *
+     * @param strings   The string table
+     * @param reference The position of the string
+     * @return Returns the referenced string
+     */
+    private static String stringAt(String[] strings, int reference) throws IOException {
+        if (reference < 0 || reference >= strings.length) {
+            throw new IOException("Invalid Snapshot: string reference out of range");
+        }
+        return strings[reference];
+    }
+}
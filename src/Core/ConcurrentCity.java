@@ -0,0 +1,381 @@
+package Core;
+
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.SensorType;
+import edu.ma02.core.enumerations.Unit;
+import edu.ma02.core.exceptions.CityException;
+import edu.ma02.core.exceptions.MeasurementException;
+import edu.ma02.core.exceptions.SensorException;
+import edu.ma02.core.exceptions.StationException;
+import edu.ma02.core.interfaces.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * A {@link City} that can be written and queried by several threads at the same time
+ *
+ * @implNote Two levels of locks are used, always in this order:
+ * <ul>
+ *     <li>A read-write structure lock, written when stations or sensors are added and read by everything else</li>
+ *     <li>Striped station locks, picked by the hash of the station name, that guard the readings of the station</li>
+ * </ul>
+ * Measurements added to different stripes don't wait for each other.
+ * Statistics only hold the lock of a station while they take a {@link Sensor#snapshot() snapshot} of its sensors,
+ * in constant time, then aggregate the snapshots without any lock. A snapshot is consistent, it holds every reading
+ * added before it and none added after. It shares the stored readings and the time buckets with the sensor,
+ * so the only cost left to writers is a copy of the buckets of a sensor when an out of order reading
+ * changes a bucket older than the last one after a snapshot.
+ * Thread safety only covers the methods of the city, not {@link IStation} or {@link ISensor} instances used directly.
+ */
+public class ConcurrentCity extends City {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantReadWriteLock structureLock;
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Constructor for {@link ConcurrentCity}
+     *
+     * @param name The name of the city
+     */
+    public ConcurrentCity(String name) {
+        this(name, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructor for {@link ConcurrentCity}
+     *
+     * @param name    The name of the city
+     * @param stripes The number of station locks, rounded up to a power of two
+     */
+    public ConcurrentCity(String name, int stripes) {
+        super(name);
+
+        int nStripes = 1;
+        while (nStripes < stripes) {
+            nStripes <<= 1;
+        }
+
+        this.stripes = new ReentrantLock[nStripes];
+        for (int i = 0; i < nStripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+
+        structureLock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Get the lock that guards the readings of a station
+     *
+     * @param stationName The name of the station
+     * @return Returns the {@link ReentrantLock} of the station
+     */
+    private ReentrantLock stripeOf(String stationName) {
+        int h = stationName.hashCode() * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote Snapshots taken together under the lock of the station
+     */
+    @Override
+    protected SensorReadings[] readingsOf(Station station, Parameter parameter, boolean totalsOnly) {
+        int nSensors = parameter != null ? station.getNumSensors(parameter) : station.getNumSensors();
+        SensorReadings[] readings = new SensorReadings[nSensors];
+
+        ReentrantLock lock = stripeOf(station.getName());
+        lock.lock();
+        try {
+            for (int i = 0; i < nSensors; i++) {
+                Sensor sensor = parameter != null ? station.getSensorAt(parameter, i) : station.getSensorAt(i);
+                readings[i] = sensor.snapshot(totalsOnly);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return readings;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote A snapshot taken under the lock of the station
+     */
+    @Override
+    protected SensorReadings readingsOf(Station station, Sensor sensor) {
+        ReentrantLock lock = stripeOf(station.getName());
+        lock.lock();
+        try {
+            return sensor.snapshot(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addStation(String stationName) throws CityException {
+        structureLock.writeLock().lock();
+        try {
+            return super.addStation(stationName);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addSensor(String stationName, String sensorId,
+                             ICartesianCoordinates cartesianCoordinates,
+                             IGeographicCoordinates geographicCoordinates
+    ) throws CityException, StationException, SensorException {
+        structureLock.writeLock().lock();
+        try {
+            return super.addSensor(stationName, sensorId, cartesianCoordinates, geographicCoordinates);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addMeasurement(String stationName, String sensorId, double value,
+                                  Unit unit, long epochMinute
+    ) throws CityException, StationException, SensorException, MeasurementException {
+        if (stationName == null) {
+            throw new CityException("Station Name can't be NULL");
+        }
+
+        structureLock.readLock().lock();
+        ReentrantLock lock = stripeOf(stationName);
+        lock.lock();
+        try {
+            return super.addMeasurement(stationName, sensorId, value, unit, epochMinute);
+        } finally {
+            lock.unlock();
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MeasurementBatch.Status[] addMeasurements(MeasurementBatch batch) throws CityException {
+        structureLock.readLock().lock();
+        try {
+            return super.addMeasurements(batch);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void addMeasurementGroup(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status)
+            throws CityException {
+        String stationName = batch.getStationName(from);
+        if (stationName == null) {
+            super.addMeasurementGroup(batch, from, to, status);
+            return;
+        }
+
+        ReentrantLock lock = stripeOf(stationName);
+        lock.lock();
+        try {
+            super.addMeasurementGroup(batch, from, to, status);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStation[] getStations() {
+        structureLock.readLock().lock();
+        try {
+            return super.getStations();
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStation getStation(String stationName) {
+        structureLock.readLock().lock();
+        try {
+            return super.getStation(stationName);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ISensor[] getSensorsByStation(String stationName) {
+        structureLock.readLock().lock();
+        try {
+            return super.getSensorsByStation(stationName);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ISensor[] getSensorsByParameter(Parameter parameter) {
+        structureLock.readLock().lock();
+        try {
+            return super.getSensorsByParameter(parameter);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ISensor[] getSensorsByType(SensorType sensorType) {
+        structureLock.readLock().lock();
+        try {
+            return super.getSensorsByType(sensorType);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStation getStationBySensor(String sensorId) {
+        structureLock.readLock().lock();
+        try {
+            return super.getStationBySensor(sensorId);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IMeasurement[] getMeasurementsBySensor(String sensorId) {
+        structureLock.readLock().lock();
+        try {
+            return super.getMeasurementsBySensor(sensorId);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStatistics[] getMeasurementsByStation(AggregationOperator aggregationOperator, Parameter parameter,
+                                                  LocalDateTime startDate, LocalDateTime endDate) {
+        structureLock.readLock().lock();
+        try {
+            return super.getMeasurementsByStation(aggregationOperator, parameter, startDate, endDate);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStatistics[] getMeasurementsByStation(AggregationOperator aggregationOperator, Parameter parameter) {
+        structureLock.readLock().lock();
+        try {
+            return super.getMeasurementsByStation(aggregationOperator, parameter);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StatisticsTable query(StatisticsQuery query) {
+        structureLock.readLock().lock();
+        try {
+            return super.query(query);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStatistics[] getMeasurementsBySensor(String stationName, AggregationOperator aggregationOperator,
+                                                 Parameter parameter, LocalDateTime startDate, LocalDateTime endDate) {
+        if (stationName == null) {
+            return super.getMeasurementsBySensor(null, aggregationOperator, parameter, startDate, endDate);
+        }
+
+        structureLock.readLock().lock();
+        try {
+            return super.getMeasurementsBySensor(stationName, aggregationOperator, parameter, startDate, endDate);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStatistics[] getMeasurementsBySensor(String stationName, AggregationOperator
+            aggregationOperator, Parameter parameter) {
+        if (stationName == null) {
+            return super.getMeasurementsBySensor(null, aggregationOperator, parameter);
+        }
+
+        structureLock.readLock().lock();
+        try {
+            return super.getMeasurementsBySensor(stationName, aggregationOperator, parameter);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package Core;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Columnar {@link MeasurementStore} kept in the Java heap
+ *
+ * @implNote Timestamps are kept as epoch minutes in a long column and values in a double column.
+ * Both columns are split in fixed size chunks so growing never copies the stored readings,
+ * only the first chunk grows by doubling until it reaches the chunk size.
+ * A chunk or directory array that holds stored readings is never written again but replaced by a copy,
+ * so a {@link #snapshot()} can keep reading it.
+ */
+public class HeapMeasurementStore implements MeasurementStore {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean readOnly;
+    private long[][] timeChunks;
+    private double[][] valueChunks;
+    private int size;
+
+    /**
+     * Constructor for {@link HeapMeasurementStore}
+     */
+    public HeapMeasurementStore() {
+        this(new long[1][], new double[1][], 0, false);
+    }
+
+    /**
+     * Constructor for {@link HeapMeasurementStore} over existing columns
+     *
+     * @param timeChunks  The directory of time chunks
+     * @param valueChunks The directory of value chunks
+     * @param size        The number of readings
+     * @param readOnly    True for a {@link #snapshot()}
+     */
+    private HeapMeasurementStore(long[][] timeChunks, double[][] valueChunks, int size, boolean readOnly) {
+        this.timeChunks = timeChunks;
+        this.valueChunks = valueChunks;
+        this.size = size;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Grow the directories of chunks
+     */
+    private void growDirectory() {
+        long[][] timesCopy = new long[timeChunks.length * 2][];
+        double[][] valuesCopy = new double[valueChunks.length * 2][];
+        System.arraycopy(timeChunks, 0, timesCopy, 0, timeChunks.length);
+        System.arraycopy(valueChunks, 0, valuesCopy, 0, valueChunks.length);
+        timeChunks = timesCopy;
+        valueChunks = valuesCopy;
+    }
+
+    /**
+     * Grow the first chunk, the only one allocated below {@link #CHUNK_SIZE}
+     *
+     * @implNote The directories are replaced too, a snapshot may still read the old first chunk
+     */
+    private void growFirstChunk() {
+        int capacity = Math.min(timeChunks[0].length * 2, CHUNK_SIZE);
+
+        long[] timesCopy = new long[capacity];
+        double[] valuesCopy = new double[capacity];
+        System.arraycopy(timeChunks[0], 0, timesCopy, 0, size);
+        System.arraycopy(valueChunks[0], 0, valuesCopy, 0, size);
+        timeChunks = new long[][]{timesCopy};
+        valueChunks = new double[][]{valuesCopy};
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(long epochMinute, double value) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("A snapshot of a store is read-only");
+        }
+
+        int chunk = size >>> CHUNK_SHIFT;
+        int offset = size & CHUNK_MASK;
+
+        if (chunk == timeChunks.length) {
+            growDirectory();
+        }
+
+        if (timeChunks[chunk] == null) {
+            int capacity = chunk == 0 ? INITIAL_CAPACITY : CHUNK_SIZE;
+            timeChunks[chunk] = new long[capacity];
+            valueChunks[chunk] = new double[capacity];
+        } else if (offset == timeChunks[chunk].length) {
+            growFirstChunk();
+        }
+
+        timeChunks[chunk][offset] = epochMinute;
+        valueChunks[chunk][offset] = value;
+        size++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTime(int index) {
+        return timeChunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getValue(int index) {
+        return valueChunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote Loops over each chunk in the range, without finding the chunk of every reading
+     */
+    @Override
+    public void aggregate(int from, int to, Aggregate aggregate) {
+        while (from < to) {
+            double[] values = valueChunks[from >>> CHUNK_SHIFT];
+            int offset = from & CHUNK_MASK;
+            int end = offset + Math.min(to - from, CHUNK_SIZE - offset);
+
+            for (int i = offset; i < end; i++) {
+                aggregate.add(values[i]);
+            }
+            from += end - offset;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MeasurementStore snapshot() {
+        return new HeapMeasurementStore(timeChunks, valueChunks, size, true);
+    }
+}
@@ -0,0 +1,189 @@
+package Core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Columnar {@link MeasurementStore} kept in a {@link MeasurementArchive}, outside the Java heap
+ *
+ * @implNote Each column is a list of blocks of the archive, the first one holds {@link #FIRST_BLOCK_SHIFT}
+ * readings as a power of two and each next one doubles up to {@link #LAST_BLOCK_SHIFT}, so a sensor with few
+ * readings takes a few KiB and the position of a reading is still found with bit operations.
+ * Reads go straight to the mapped pages, so the operating system page cache decides what stays in memory
+ * and histories larger than the RAM are paged in and out instead of filling the heap.
+ */
+public class MappedMeasurementStore implements MeasurementStore {
+    private static final int FIRST_BLOCK_SHIFT = 8;
+    private static final int LAST_BLOCK_SHIFT = 22;
+    private static final int LAST_BLOCK_MASK = (1 << LAST_BLOCK_SHIFT) - 1;
+    // Blocks that double, then the readings they hold together
+    private static final int GROWING_BLOCKS = LAST_BLOCK_SHIFT - FIRST_BLOCK_SHIFT;
+    private static final int GROWING_READINGS = (1 << LAST_BLOCK_SHIFT) - (1 << FIRST_BLOCK_SHIFT);
+
+    private final MeasurementArchive archive;
+    private final boolean readOnly;
+    private ByteBuffer[] timeBlocks;
+    private ByteBuffer[] valueBlocks;
+    private int nBlocks;
+    private int capacity;
+    private int size;
+
+    /**
+     * Constructor for {@link MappedMeasurementStore}
+     *
+     * @param archive The {@link MeasurementArchive archive} of the blocks, allocated with the first reading
+     */
+    public MappedMeasurementStore(MeasurementArchive archive) {
+        this.archive = archive;
+        timeBlocks = new ByteBuffer[4];
+        valueBlocks = new ByteBuffer[4];
+        readOnly = false;
+    }
+
+    /**
+     * Constructor for a {@link #snapshot()} of a {@link MappedMeasurementStore}
+     *
+     * @param store The store to share the blocks of
+     */
+    private MappedMeasurementStore(MappedMeasurementStore store) {
+        archive = store.archive;
+        timeBlocks = store.timeBlocks;
+        valueBlocks = store.valueBlocks;
+        nBlocks = store.nBlocks;
+        capacity = store.capacity;
+        size = store.size;
+        readOnly = true;
+    }
+
+    /**
+     * Get the block of a reading
+     *
+     * @param index The position of the reading
+     * @return Returns the number of the block
+     */
+    private static int blockOf(int index) {
+        if (index < GROWING_READINGS) {
+            return Integer.SIZE - 1 - Integer.numberOfLeadingZeros((index >>> FIRST_BLOCK_SHIFT) + 1);
+        }
+        return GROWING_BLOCKS + ((index - GROWING_READINGS) >>> LAST_BLOCK_SHIFT);
+    }
+
+    /**
+     * Get the position of a reading inside its block
+     *
+     * @param index The position of the reading
+     * @param block The number of the block, see {@link #blockOf(int)}
+     * @return Returns the byte offset of the reading in the block
+     */
+    private static int offsetOf(int index, int block) {
+        if (index < GROWING_READINGS) {
+            return (index + (1 << FIRST_BLOCK_SHIFT) - (1 << (FIRST_BLOCK_SHIFT + block))) << 3;
+        }
+        return ((index - GROWING_READINGS) & LAST_BLOCK_MASK) << 3;
+    }
+
+    /**
+     * Allocate the next block of both columns
+     */
+    private void allocateBlock() {
+        if (nBlocks == timeBlocks.length) {
+            ByteBuffer[] timesCopy = new ByteBuffer[timeBlocks.length * 2];
+            ByteBuffer[] valuesCopy = new ByteBuffer[valueBlocks.length * 2];
+            System.arraycopy(timeBlocks, 0, timesCopy, 0, nBlocks);
+            System.arraycopy(valueBlocks, 0, valuesCopy, 0, nBlocks);
+            timeBlocks = timesCopy;
+            valueBlocks = valuesCopy;
+        }
+
+        int readings = 1 << (FIRST_BLOCK_SHIFT + Math.min(nBlocks, GROWING_BLOCKS));
+        try {
+            timeBlocks[nBlocks] = archive.allocate(readings * Long.BYTES);
+            valueBlocks[nBlocks] = archive.allocate(readings * Double.BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Measurement archive couldn't grow", e);
+        }
+        nBlocks++;
+        capacity += readings;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException Throws this exception if the archive is closed or can't grow
+     */
+    @Override
+    public void add(long epochMinute, double value) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("A snapshot of a store is read-only");
+        }
+
+        if (size == capacity) {
+            allocateBlock();
+        }
+
+        int block = blockOf(size);
+        int offset = offsetOf(size, block);
+        timeBlocks[block].putLong(offset, epochMinute);
+        valueBlocks[block].putDouble(offset, value);
+        size++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTime(int index) {
+        int block = blockOf(index);
+        return timeBlocks[block].getLong(offsetOf(index, block));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getValue(int index) {
+        int block = blockOf(index);
+        return valueBlocks[block].getDouble(offsetOf(index, block));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote Reads the mapped pages one by one, the page cache is slower than the loop
+     */
+    @Override
+    public void aggregate(int from, int to, Aggregate aggregate) {
+        for (int i = from; i < to; i++) {
+            aggregate.add(getValue(i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote Blocks are only added to free slots or to a new array, never replaced
+     */
+    @Override
+    public MeasurementStore snapshot() {
+        return new MappedMeasurementStore(this);
+    }
+}
@@ -4,6 +4,8 @@ import edu.ma02.core.exceptions.MeasurementException;
 import edu.ma02.core.interfaces.IMeasurement;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 
 /*
  * Nome: Micael André Cunha Dias
@@ -17,37 +19,118 @@ import java.time.LocalDateTime;
 public class Measurement implements IMeasurement {
 
     private final double value;
-    private final LocalDateTime localDateTime;
+    private final long epochMinute;
+    // Views only build their date when asked for it
+    private LocalDateTime localDateTime;
 
     /**
      * Constructor for {@link Measurement}
      *
      * @param value         The read value
-     * @param localDateTime The time of the read
+     * @param localDateTime The time of the read, seconds are truncated as readings are kept by minute
      * @throws MeasurementException If the {@link LocalDateTime localDateTime} is null or
      *                              {@link Double value} is out of bounds
      */
     public Measurement(double value, LocalDateTime localDateTime) throws MeasurementException {
+        checkTime(localDateTime);
+        checkValue(value);
+
+        this.value = value;
+        this.epochMinute = toEpochMinute(localDateTime);
+        this.localDateTime = localDateTime.truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    /**
+     * Constructor for a {@link Measurement} view over an already validated reading
+     *
+     * @param value       The read value
+     * @param epochMinute The time of the read in minutes since the epoch
+     * @implNote Used by {@link Sensor} to build views from its {@link MeasurementStore},
+     * the {@link LocalDateTime} is only built by {@link #getTime()}
+     */
+    Measurement(double value, long epochMinute) {
+        this.value = value;
+        this.epochMinute = epochMinute;
+    }
+
+    /**
+     * Validate bounds for the measurement
+     *
+     * @param val The read value
+     * @return Return if the {@link Double val} is valid
+     */
+    static boolean validateValueBounds(double val) {
+        return val != -99;
+    }
+
+    /**
+     * Check the time of a reading
+     *
+     * @param localDateTime The time of the read
+     * @throws MeasurementException If the {@link LocalDateTime localDateTime} is null
+     * @apiNote Used by {@link Sensor}, which stores readings without building a {@link Measurement}
+     */
+    static void checkTime(LocalDateTime localDateTime) throws MeasurementException {
         if (localDateTime == null) {
             throw new MeasurementException("DateTime can't be NULL");
         }
+    }
 
+    /**
+     * Check the value of a reading
+     *
+     * @param value The read value
+     * @throws MeasurementException If the {@link Double value} is out of bounds
+     * @apiNote Used by {@link Sensor}, which stores readings without building a {@link Measurement}
+     */
+    static void checkValue(double value) throws MeasurementException {
         if (!validateValueBounds(value)) {
             throw new MeasurementException("Measurement Value Out of Bounds");
         }
+    }
 
-        this.value = value;
-        this.localDateTime = localDateTime;
+    /**
+     * Convert a {@link LocalDateTime} to minutes since the epoch
+     *
+     * @param localDateTime The {@link LocalDateTime localDateTime} to convert
+     * @return Returns the number of minutes since the epoch, seconds are truncated
+     */
+    public static long toEpochMinute(LocalDateTime localDateTime) {
+        return Math.floorDiv(localDateTime.toEpochSecond(ZoneOffset.UTC), 60);
     }
 
     /**
-     * Validate bounds for the measurement
+     * Convert minutes since the epoch to a {@link LocalDateTime}
      *
-     * @param val The read value
-     * @return Return if the {@link Double val} is valid
+     * @param epochMinute The number of minutes since the epoch
+     * @return Returns the matching {@link LocalDateTime}
      */
-    private boolean validateValueBounds(double val) {
-        return val != -99;
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Get the first minute after a {@link LocalDateTime}, the inclusive start of the window (date, ...)
+     *
+     * @param localDateTime The exclusive start of the window
+     * @return Returns the first minute since the epoch strictly after {@link LocalDateTime localDateTime}
+     */
+    public static long firstMinuteAfter(LocalDateTime localDateTime) {
+        return toEpochMinute(localDateTime) + 1;
+    }
+
+    /**
+     * Get the first minute not before a {@link LocalDateTime}, the exclusive end of the window (..., date)
+     *
+     * @param localDateTime The exclusive end of the window
+     * @return Returns the first minute since the epoch that is not strictly before {@link LocalDateTime localDateTime}
+     */
+    public static long firstMinuteNotBefore(LocalDateTime localDateTime) {
+        long epochSecond = localDateTime.toEpochSecond(ZoneOffset.UTC);
+
+        // The minute that contains the date is only before it if the date is past the start of that minute
+        boolean startOfMinute = Math.floorMod(epochSecond, 60) == 0 && localDateTime.getNano() == 0;
+        return toEpochMinute(localDateTime) + (startOfMinute ? 0 : 1);
     }
 
     /**
@@ -55,6 +138,9 @@ public class Measurement implements IMeasurement {
      */
     @Override
     public LocalDateTime getTime() {
+        if (localDateTime == null) {
+            localDateTime = fromEpochMinute(epochMinute);
+        }
         return localDateTime;
     }
 
@@ -74,7 +160,16 @@ public class Measurement implements IMeasurement {
         if (obj == this) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Measurement m = (Measurement) obj;
-        return m.localDateTime == this.localDateTime && m.value == this.value;
+        return m.epochMinute == this.epochMinute && m.value == this.value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        // Adding 0.0 turns -0.0 into 0.0, the two are equal for equals
+        return 31 * Long.hashCode(epochMinute) + Double.hashCode(value + 0.0);
     }
 
     /**
@@ -84,7 +179,7 @@ public class Measurement implements IMeasurement {
     public String toString() {
         return "Measurement{" +
                 "value=" + value +
-                ", localDateTime=" + localDateTime +
+                ", localDateTime=" + getTime() +
                 '}';
     }
 }
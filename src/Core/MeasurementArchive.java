@@ -0,0 +1,128 @@
+package Core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Memory-mapped file shared by the {@link MappedMeasurementStore stores} of many sensors
+ *
+ * @implNote Each archive creates its own directory with a unique name inside the given one,
+ * so archives of several cities or programs in the same directory never touch each other's files.
+ * The file is mapped in segments of {@link #SEGMENT_BYTES} and stores get blocks of a segment,
+ * so the number of mappings grows with the size of the archive, not with the number of sensors.
+ * A block never spans two segments, the end of a segment too small for the next block stays unused.
+ * @apiNote The archive is a scratch area deleted by {@link #close()}, use {@link CitySnapshot} to keep a city.
+ * Stores of a closed archive must not be used anymore, their mappings are released once they're unreachable.
+ */
+public class MeasurementArchive implements AutoCloseable {
+    /**
+     * Size of a mapped segment, the largest block that can be allocated
+     */
+    public static final int SEGMENT_BYTES = 1 << 26;
+
+    private final Path directory;
+    private final Path file;
+    private final FileChannel channel;
+
+    // Guarded by this
+    private MappedByteBuffer[] segments;
+    private long used = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor for {@link MeasurementArchive}, creates an empty archive in a new directory
+     *
+     * @param directory The {@link String path} of the existing directory where the archive directory is created
+     */
+    public MeasurementArchive(String directory) throws IOException {
+        this.directory = Files.createTempDirectory(Path.of(directory), "archive-");
+        file = this.directory.resolve("readings");
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segments = new MappedByteBuffer[4];
+    }
+
+    /**
+     * Allocate a block of the archive
+     *
+     * @param bytes The size of the block, at most {@link #SEGMENT_BYTES}
+     * @return Returns a {@link ByteBuffer} over the block, filled with zeros
+     * @throws IOException Throws this exception if the archive is closed or a segment can't be mapped
+     */
+    synchronized ByteBuffer allocate(int bytes) throws IOException {
+        if (closed) {
+            throw new IOException("Measurement archive is closed");
+        }
+
+        int segment = (int) (used / SEGMENT_BYTES);
+        int offset = (int) (used % SEGMENT_BYTES);
+        if (offset + bytes > SEGMENT_BYTES) {
+            segment++;
+            offset = 0;
+        }
+
+        if (segment == segments.length) {
+            MappedByteBuffer[] copy = new MappedByteBuffer[segments.length * 2];
+            System.arraycopy(segments, 0, copy, 0, segments.length);
+            segments = copy;
+        }
+        if (segments[segment] == null) {
+            segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * SEGMENT_BYTES,
+                    SEGMENT_BYTES);
+        }
+
+        used = (long) segment * SEGMENT_BYTES + offset + bytes;
+        return segments[segment].slice(offset, bytes);
+    }
+
+    /**
+     * Get the number of bytes allocated to the stores
+     *
+     * @return Returns the allocated bytes, unused ends of segments included
+     */
+    public synchronized long getAllocatedBytes() {
+        return used;
+    }
+
+    /**
+     * Close the archive and delete its file and directory
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+
+        closed = true;
+        segments = null;
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "MeasurementArchive{" +
+                "directory=" + directory +
+                '}';
+    }
+}
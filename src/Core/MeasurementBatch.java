@@ -0,0 +1,232 @@
+package Core;
+
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Rows of readings in primitive columns, for the bulk inserts of {@link City}, {@link Station} and {@link Sensor}
+ *
+ * @implNote Consecutive rows of the same station and sensor are a group: the station and sensor are looked up
+ * and the unit is validated once per group and the indexes of the sensor are grown once for the whole group.
+ * Batches grouped by sensor get the most out of it, about three times the rows per second of adding them one by one.
+ * Rows interleaved by time, as in a live feed, make groups of one row and gain little:
+ * the cost is then the insert itself, in the indexes of a different sensor on every row.
+ * With a {@link WriteAheadLog} each group is logged as one record and the cache is told once per group.
+ */
+public class MeasurementBatch {
+    /**
+     * Time of a row without date
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Outcome of a row of a bulk insert
+     */
+    public enum Status {
+        /**
+         * The reading was stored
+         */
+        ADDED,
+        /**
+         * The sensor already had the same reading, like when {@link Sensor#addMeasurement} returns false
+         */
+        DUPLICATE,
+        STATION_NOT_FOUND,
+        SENSOR_NOT_FOUND,
+        INVALID_UNIT,
+        INVALID_DATE,
+        INVALID_VALUE
+    }
+
+    private String[] stationNames;
+    private String[] sensorIds;
+    private double[] values;
+    private String[] units;
+    private long[] epochMinutes;
+    private int size = 0;
+
+    /**
+     * Constructor for {@link MeasurementBatch}
+     */
+    public MeasurementBatch() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor for {@link MeasurementBatch} sized for a number of rows
+     *
+     * @param capacity The expected number of rows
+     */
+    public MeasurementBatch(int capacity) {
+        capacity = Math.max(capacity, 1);
+        stationNames = new String[capacity];
+        sensorIds = new String[capacity];
+        values = new double[capacity];
+        units = new String[capacity];
+        epochMinutes = new long[capacity];
+    }
+
+    /**
+     * Grow every column
+     */
+    private void grow() {
+        int capacity = values.length * 2;
+
+        String[] stationNamesCopy = new String[capacity];
+        String[] sensorIdsCopy = new String[capacity];
+        double[] valuesCopy = new double[capacity];
+        String[] unitsCopy = new String[capacity];
+        long[] epochMinutesCopy = new long[capacity];
+        System.arraycopy(stationNames, 0, stationNamesCopy, 0, size);
+        System.arraycopy(sensorIds, 0, sensorIdsCopy, 0, size);
+        System.arraycopy(values, 0, valuesCopy, 0, size);
+        System.arraycopy(units, 0, unitsCopy, 0, size);
+        System.arraycopy(epochMinutes, 0, epochMinutesCopy, 0, size);
+        stationNames = stationNamesCopy;
+        sensorIds = sensorIdsCopy;
+        values = valuesCopy;
+        units = unitsCopy;
+        epochMinutes = epochMinutesCopy;
+    }
+
+    /**
+     * Add a row
+     *
+     * @param stationName The name of the station, not used by {@link Station} and {@link Sensor}
+     * @param sensorId    The id of the sensor, not used by {@link Sensor}
+     * @param value       The read value
+     * @param unit        The unit of the value
+     * @param epochMinute The time of the reading in minutes since the epoch or {@link #NO_TIME}
+     */
+    public void add(String stationName, String sensorId, double value, String unit, long epochMinute) {
+        if (size == values.length) {
+            grow();
+        }
+
+        stationNames[size] = stationName;
+        sensorIds[size] = sensorId;
+        values[size] = value;
+        units[size] = unit;
+        epochMinutes[size] = epochMinute;
+        size++;
+    }
+
+    /**
+     * Add a row
+     *
+     * @param stationName   The name of the station, not used by {@link Station} and {@link Sensor}
+     * @param sensorId      The id of the sensor, not used by {@link Sensor}
+     * @param value         The read value
+     * @param unit          The unit of the value
+     * @param localDateTime The time of the reading or null
+     */
+    public void add(String stationName, String sensorId, double value, String unit, LocalDateTime localDateTime) {
+        add(stationName, sensorId, value, unit,
+                localDateTime == null ? NO_TIME : Measurement.toEpochMinute(localDateTime));
+    }
+
+    /**
+     * Remove every row, the columns are kept for the next batch
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            stationNames[i] = null;
+            sensorIds[i] = null;
+            units[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Get the number of rows
+     *
+     * @return Returns the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the station of a row
+     *
+     * @param row The position of the row
+     * @return Returns the name of the station
+     */
+    public String getStationName(int row) {
+        return stationNames[row];
+    }
+
+    /**
+     * Get the sensor of a row
+     *
+     * @param row The position of the row
+     * @return Returns the id of the sensor
+     */
+    public String getSensorId(int row) {
+        return sensorIds[row];
+    }
+
+    /**
+     * Get the value of a row
+     *
+     * @param row The position of the row
+     * @return Returns the read value
+     */
+    public double getValue(int row) {
+        return values[row];
+    }
+
+    /**
+     * Get the unit of a row
+     *
+     * @param row The position of the row
+     * @return Returns the unit of the value
+     */
+    public String getUnit(int row) {
+        return units[row];
+    }
+
+    /**
+     * Get the time of a row
+     *
+     * @param row The position of the row
+     * @return Returns the time in minutes since the epoch or {@link #NO_TIME}
+     */
+    public long getEpochMinute(int row) {
+        return epochMinutes[row];
+    }
+
+    /**
+     * Find the end of the group that starts at a row
+     *
+     * @param from        The first row of the group
+     * @param sameStation True if the rows of the group must have the same station
+     * @return Returns the first row after the group, the rows of a group always have the same sensor
+     */
+    int groupEnd(int from, boolean sameStation) {
+        int to = from + 1;
+        while (to < size && same(sensorIds[from], sensorIds[to])
+                && (!sameStation || same(stationNames[from], stationNames[to]))) {
+            to++;
+        }
+        return to;
+    }
+
+    /**
+     * Compare two names, a feed usually repeats the same instance
+     */
+    private static boolean same(String a, String b) {
+        return a == b || (a != null && a.equals(b));
+    }
+}
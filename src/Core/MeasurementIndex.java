@@ -0,0 +1,136 @@
+package Core;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Hash index over the (time, value) pairs of a {@link MeasurementStore}
+ *
+ * @implNote Open addressing with linear probing. Slots hold the position of the reading in the
+ * store plus one, so a slot with 0 is empty. The table is kept at most half full.
+ */
+public class MeasurementIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final MeasurementStore store;
+    private int[] slots;
+    private int elements;
+
+    /**
+     * Constructor for {@link MeasurementIndex}
+     *
+     * @param store The {@link MeasurementStore store} to index
+     */
+    public MeasurementIndex(MeasurementStore store) {
+        this.store = store;
+        slots = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Hash a reading
+     *
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
+     * @return Returns the hash of the reading
+     */
+    private static int hash(long epochMinute, double value) {
+        // 0.0 and -0.0 are equal readings so they must share the same hash
+        long bits = value == 0 ? 0 : Double.doubleToLongBits(value);
+        long h = epochMinute * 0x9E3779B97F4A7C15L ^ bits * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Grow the table and reinsert every indexed position
+     */
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+
+        for (int slot : old) {
+            if (slot != 0) {
+                insert(slot - 1);
+            }
+        }
+    }
+
+    /**
+     * Place a position of the store in the first free slot of its probe sequence
+     *
+     * @param position The position of the reading in the store
+     */
+    private void insert(int position) {
+        int mask = slots.length - 1;
+        int i = hash(store.getTime(position), store.getValue(position)) & mask;
+
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+
+        slots[i] = position + 1;
+    }
+
+    /**
+     * Checks if a reading is indexed
+     *
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
+     * @return true if a reading is found or false if nothing is found
+     */
+    public boolean contains(long epochMinute, double value) {
+        int mask = slots.length - 1;
+        int i = hash(epochMinute, value) & mask;
+
+        while (slots[i] != 0) {
+            int position = slots[i] - 1;
+            if (store.getTime(position) == epochMinute && store.getValue(position) == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return false;
+    }
+
+    /**
+     * Grow the table once so a number of readings can be added without growing it again
+     *
+     * @param additional The number of readings about to be added
+     */
+    public void reserve(int additional) {
+        int capacity = slots.length;
+        while ((long) (elements + additional) * 2 > capacity && capacity < 1 << 30) {
+            capacity *= 2;
+        }
+        if (capacity == slots.length) return;
+
+        int[] old = slots;
+        slots = new int[capacity];
+        for (int slot : old) {
+            if (slot != 0) {
+                insert(slot - 1);
+            }
+        }
+    }
+
+    /**
+     * Index a reading already appended to the store
+     *
+     * @param position The position of the reading in the store
+     */
+    public void add(int position) {
+        if ((elements + 1) * 2 > slots.length) {
+            grow();
+        }
+
+        insert(position);
+        elements++;
+    }
+}
@@ -0,0 +1,69 @@
+package Core;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Columnar storage for the readings of a {@link Sensor}
+ *
+ * @implNote Readings are only appended, a position never changes once assigned.
+ * See {@link HeapMeasurementStore} and {@link MappedMeasurementStore}.
+ */
+public interface MeasurementStore {
+
+    /**
+     * Append a reading to the store
+     *
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
+     */
+    void add(long epochMinute, double value);
+
+    /**
+     * Get the time of a reading
+     *
+     * @param index The position of the reading
+     * @return Returns the time in minutes since the epoch
+     */
+    long getTime(int index);
+
+    /**
+     * Get the value of a reading
+     *
+     * @param index The position of the reading
+     * @return Returns the read value
+     */
+    double getValue(int index);
+
+    /**
+     * Merge the values of a range of positions into an {@link Aggregate}
+     *
+     * @param from      The inclusive first position
+     * @param to        The exclusive last position
+     * @param aggregate The {@link Aggregate aggregate} to merge into
+     */
+    void aggregate(int from, int to, Aggregate aggregate);
+
+    /**
+     * Get the number of stored readings
+     *
+     * @return Returns the number of readings
+     */
+    int size();
+
+    /**
+     * Get a read-only view of the readings stored so far
+     *
+     * @return Returns a {@link MeasurementStore} with the first {@link #size()} readings, later ones aren't seen
+     * @implNote Positions never change once assigned, so the view shares the columns instead of copying them.
+     * It can be read by another thread while this store is appended to, once handed over through a lock.
+     */
+    MeasurementStore snapshot();
+}
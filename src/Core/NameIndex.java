@@ -0,0 +1,121 @@
+package Core;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Hash index from a {@link String name} to an element
+ *
+ * @param <T> The type of the indexed elements
+ * @implNote Open addressing with linear probing, the table is kept at most half full.
+ * Elements are never removed, as stations and sensors are never removed.
+ */
+public class NameIndex<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names;
+    private Object[] elements;
+    private int nElements;
+
+    /**
+     * Constructor for {@link NameIndex}
+     */
+    public NameIndex() {
+        names = new String[INITIAL_CAPACITY];
+        elements = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Spread the bits of the {@link String#hashCode()} of a name
+     *
+     * @param name The name to hash
+     * @return Returns the hash of the name
+     */
+    private static int hash(String name) {
+        int h = name.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Find the slot of a name, or the empty slot where it belongs
+     *
+     * @param name The name to look for
+     * @return Returns the position of the slot
+     */
+    private int slotOf(String name) {
+        int mask = names.length - 1;
+        int i = hash(name) & mask;
+
+        while (names[i] != null && !names[i].equals(name)) {
+            i = (i + 1) & mask;
+        }
+
+        return i;
+    }
+
+    /**
+     * Grow the table and reinsert every element
+     */
+    private void grow() {
+        String[] oldNames = names;
+        Object[] oldElements = elements;
+        names = new String[oldNames.length * 2];
+        elements = new Object[oldElements.length * 2];
+
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = slotOf(oldNames[i]);
+                names[slot] = oldNames[i];
+                elements[slot] = oldElements[i];
+            }
+        }
+    }
+
+    /**
+     * Get the element of a name
+     *
+     * @param name The name to look for
+     * @return Returns the element or null if the name isn't indexed
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String name) {
+        if (name == null) return null;
+
+        return (T) elements[slotOf(name)];
+    }
+
+    /**
+     * Index an element by name, replacing the element already indexed with that name
+     *
+     * @param name    The name of the element
+     * @param element The element to index
+     */
+    public void put(String name, T element) {
+        if ((nElements + 1) * 2 > names.length) {
+            grow();
+        }
+
+        int slot = slotOf(name);
+        if (names[slot] == null) {
+            names[slot] = name;
+            nElements++;
+        }
+        elements[slot] = element;
+    }
+
+    /**
+     * Get the number of indexed elements
+     *
+     * @return Returns the number of elements
+     */
+    public int size() {
+        return nElements;
+    }
+}
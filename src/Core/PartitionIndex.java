@@ -0,0 +1,89 @@
+package Core;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Lists of elements partitioned by the ordinal of an enum, like the {@link edu.ma02.core.enumerations.Parameter}
+ * of a {@link Sensor}
+ *
+ * @param <T> The type of the partitioned elements
+ * @implNote Each partition keeps the order the elements were added in.
+ * Elements are never removed, as stations and sensors are never removed.
+ */
+public class PartitionIndex<T> {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Object[][] partitions;
+    private final int[] sizes;
+
+    /**
+     * Constructor for {@link PartitionIndex}
+     *
+     * @param nKeys The number of keys, the number of constants of the enum
+     */
+    public PartitionIndex(int nKeys) {
+        partitions = new Object[nKeys][];
+        sizes = new int[nKeys];
+    }
+
+    /**
+     * Add an element to the end of a partition
+     *
+     * @param key     The ordinal of the key
+     * @param element The element to add
+     */
+    public void add(int key, T element) {
+        Object[] partition = partitions[key];
+        if (partition == null) {
+            partition = partitions[key] = new Object[INITIAL_CAPACITY];
+        } else if (sizes[key] == partition.length) {
+            Object[] copy = new Object[partition.length * 2];
+            System.arraycopy(partition, 0, copy, 0, sizes[key]);
+            partition = partitions[key] = copy;
+        }
+
+        partition[sizes[key]++] = element;
+    }
+
+    /**
+     * Get the number of elements of a partition
+     *
+     * @param key The ordinal of the key
+     * @return Returns the number of elements with that key
+     */
+    public int size(int key) {
+        return sizes[key];
+    }
+
+    /**
+     * Get an element of a partition by position
+     *
+     * @param key   The ordinal of the key
+     * @param index The position inside the partition, in the order the elements were added
+     * @return Returns the element
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int key, int index) {
+        return (T) partitions[key][index];
+    }
+
+    /**
+     * Copy a partition into an array
+     *
+     * @param key    The ordinal of the key
+     * @param target The array to copy into, with room for {@link #size(int)} elements of a compatible type
+     */
+    public void copyInto(int key, Object[] target) {
+        if (sizes[key] > 0) {
+            System.arraycopy(partitions[key], 0, target, 0, sizes[key]);
+        }
+    }
+}
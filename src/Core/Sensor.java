@@ -29,8 +29,12 @@ public class Sensor implements ISensor {
     private final SensorType sensorType;
     private final Parameter parameter;
 
-    private Measurement[] measurements;
-    private int numMeasurements;
+    private final MeasurementStore measurements;
+    private final MeasurementIndex measurementIndex;
+    private final TimeIndex timeIndex;
+    private final Aggregate totals;
+    private final TimeBuckets[] buckets;
+    private final SensorReadings readings;
 
     /**
      * Constructor for {@link Sensor}
@@ -47,17 +51,36 @@ public class Sensor implements ISensor {
     public Sensor(String sensorId,
                   ICartesianCoordinates cartesianCoordinates,
                   IGeographicCoordinates geographicCoordinates
+    ) throws SensorException {
+        this(sensorId, cartesianCoordinates, geographicCoordinates, new HeapMeasurementStore());
+    }
+
+    /**
+     * Constructor for {@link Sensor} with the readings kept in a given {@link MeasurementStore}
+     *
+     * @param sensorId              The Sensor Id
+     * @param cartesianCoordinates  An interface of {@link ICartesianCoordinates}
+     * @param geographicCoordinates An interface of {@link IGeographicCoordinates}
+     * @param store                 The empty {@link MeasurementStore store} of the readings
+     * @implNote With a {@link MappedMeasurementStore} nothing grows in the heap with every reading:
+     * duplicates are found through the {@link TimeIndex} instead of a hash index
+     */
+    public Sensor(String sensorId,
+                  ICartesianCoordinates cartesianCoordinates,
+                  IGeographicCoordinates geographicCoordinates,
+                  MeasurementStore store
     ) throws SensorException {
         if (!isSensorIdLengthValid(sensorId)) {
             throw new SensorException("SensorId can't have more or less then 10 characters");
         }
 
-        SensorType sensorType = identifySensorType(sensorId);
+        SensorIdDecoder.Decoded decoded = SensorIdDecoder.decode(sensorId);
+        SensorType sensorType = decoded.getSensorType();
         if (sensorType == null) {
             throw new SensorException("Sensor Type couldn't be identified");
         }
 
-        Parameter parameter = identifySensorParameter(sensorType, sensorId);
+        Parameter parameter = decoded.getParameter();
         if (parameter == null) {
             throw new SensorException("Sensor Parameter couldn't be identified");
         }
@@ -68,7 +91,20 @@ public class Sensor implements ISensor {
         this.cartesianCoordinates = cartesianCoordinates;
         this.geographicCoordinates = geographicCoordinates;
 
-        measurements = new Measurement[10];
+        measurements = store;
+        timeIndex = new TimeIndex(measurements);
+        totals = new Aggregate();
+
+        measurementIndex = store instanceof MappedMeasurementStore ? null : new MeasurementIndex(measurements);
+
+        // From the finest to the coarsest granularity, no hours as feeds are hourly:
+        // a bucket per reading would cost more memory than the reading itself
+        buckets = new TimeBuckets[]{
+                new TimeBuckets(TimeBuckets.Granularity.DAY),
+                new TimeBuckets(TimeBuckets.Granularity.MONTH)
+        };
+
+        readings = new SensorReadings(this, measurements, timeIndex, totals, buckets);
     }
 
     /**
@@ -83,95 +119,172 @@ public class Sensor implements ISensor {
     }
 
     /**
-     * Identify the {@link SensorType}
+     * Adds a new reading to the {@link #measurements} store
      *
-     * @param sensorId The {@link String sensorId} to validate
-     * @return Returns a {@link SensorType} if the {@link String sensorId} is valid
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
+     * @return true if the reading was inserted in the collection or false if the reading already exists
+     * @implNote Package-private so {@link WriteAheadLog} can replay readings that were validated when first added
      */
-    private SensorType identifySensorType(String sensorId) {
-        if (sensorId.startsWith("QA")) return SensorType.AIR;
-        else if (sensorId.startsWith("RU")) return SensorType.NOISE;
-        else if (sensorId.startsWith("ME")) return SensorType.WEATHER;
+    boolean addElement(long epochMinute, double value) {
+        if (containsElement(epochMinute, value)) return false;
 
-        return null;
+        appendElement(epochMinute, value);
+        return true;
     }
 
     /**
-     * Identify the sensor {@link Parameter} from the {@link String sensorId}
+     * Check if the {@link #measurements} store has a reading
      *
-     * @param sensorId   The {@link String sensorId} to validate
-     * @param sensorType The previous identified {@link SensorType sensorType}
-     * @return Returns a {@link Parameter} if the parameter is successful identified or null if no parameter was found
-     * @implNote Call this method after call {@link #identifySensorType(String sensorId)}
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
+     * @return Returns true if the reading is already stored
      */
-    private Parameter identifySensorParameter(SensorType sensorType, String sensorId) {
-        for (Parameter param : sensorType.getParameters()) {
-            if (sensorId.contains(param.toString())) return param;
-        }
-
-        return sensorId.contains("PM25") ? Parameter.PM2_5 : null;
+    private boolean containsElement(long epochMinute, double value) {
+        return measurementIndex != null ? measurementIndex.contains(epochMinute, value)
+                : timeIndex.contains(epochMinute, value);
     }
 
     /**
-     * Checks if a {@link Measurement} already exists
+     * Append a reading the store doesn't have to the {@link #measurements} store and its indexes
      *
-     * @param measurement The {@link Measurement measurement} to be validated
-     * @return true if a {@link Measurement} is found or false if nothing is found
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
      */
-    private boolean exists(Measurement measurement) {
-        for (IMeasurement iMeasurement : getMeasurements()) {
-            if (iMeasurement instanceof Measurement m) {
-                if (measurement.equals(m)) {
-                    return true;
-                }
-            }
+    void appendElement(long epochMinute, double value) {
+        measurements.add(epochMinute, value);
+        if (measurementIndex != null) measurementIndex.add(measurements.size() - 1);
+        timeIndex.add(measurements.size() - 1);
+        totals.add(value);
+        for (TimeBuckets timeBuckets : buckets) {
+            timeBuckets.add(epochMinute, value);
         }
+    }
 
-        return false;
+    /**
+     * Check if a unit is the unit of the sensor {@link Parameter}
+     *
+     * @param unit The unit as written in the feed
+     * @return Returns true if the unit matches the parameter
+     */
+    private boolean isUnitValid(String unit) {
+        return parameter.getUnit() == UnitResolver.resolve(unit);
     }
 
     /**
-     * Adds a new element to an array of {@link #measurements}
+     * Add a batch of readings, the station and sensor of the rows are not used
      *
-     * @param measurement The {@link Measurement measurement} to be added
-     * @return true if the {@link Measurement} was inserted in the collection or false if the {@link Measurement} already exists
+     * @param batch The {@link MeasurementBatch batch} of readings
+     * @return Returns the {@link MeasurementBatch.Status status} of each row
+     * @apiNote Unlike {@link #addMeasurement} invalid rows don't throw, their status tells what is wrong
      */
-    private boolean addElement(Measurement measurement) {
-        if (exists(measurement)) return false;
+    public MeasurementBatch.Status[] addMeasurements(MeasurementBatch batch) {
+        MeasurementBatch.Status[] status = new MeasurementBatch.Status[batch.size()];
+        addMeasurements(batch, 0, batch.size(), status);
+        return status;
+    }
 
-        // If array is full then grow array
-        if (numMeasurements == measurements.length) {
-            grow();
+    /**
+     * Add a range of rows of a batch
+     *
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch, filled for the range
+     * @return Returns the number of added readings
+     * @implNote The checks are the ones of {@link #addMeasurement}, in the same order.
+     * A unit is only validated again when it differs from the one of the previous row.
+     */
+    int addMeasurements(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status) {
+        if (measurementIndex != null) {
+            measurementIndex.reserve(to - from);
         }
-
-        measurements[numMeasurements++] = measurement;
-        return true;
+        return checkRows(batch, from, to, status, true);
     }
 
     /**
-     * Grow an array of {@link Measurement}
+     * Check a range of rows of a batch without adding them
+     *
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch, filled for the range,
+     *               {@link MeasurementBatch.Status#ADDED} for the rows {@link #applyMeasurements} would add
+     * @return Returns the number of rows that would be added
      */
-    private void grow() {
-        Measurement[] copy = new Measurement[measurements.length * 2];
-        System.arraycopy(measurements, 0, copy, 0, numMeasurements);
-        measurements = copy;
+    int checkMeasurements(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status) {
+        return checkRows(batch, from, to, status, false);
     }
 
     /**
-     * Convert unicode char 'MICRO SIGN' (U+00B5) to greek approximation (U+03BC)
+     * Add the rows of a range checked by {@link #checkMeasurements}
      *
-     * @param unit The unit where the special character is
-     * @return The new string if there are a match, otherwise return without changes
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch,
+     *               a row repeated in the range is changed to {@link MeasurementBatch.Status#DUPLICATE}
+     * @return Returns the number of added readings
      */
-    private String convertMicroLatinSignToGreekIfAny(String unit) {
-        String latinMicroSign = "\u00B5";
-        String greekMicroSign = "\u03BC";
+    int applyMeasurements(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status) {
+        if (measurementIndex != null) {
+            measurementIndex.reserve(to - from);
+        }
 
-        if (unit.startsWith(latinMicroSign)) {
-            return unit.replace(latinMicroSign, greekMicroSign);
+        int added = 0;
+        for (int row = from; row < to; row++) {
+            if (status[row] != MeasurementBatch.Status.ADDED) continue;
+
+            if (addElement(batch.getEpochMinute(row), batch.getValue(row))) {
+                added++;
+            } else {
+                status[row] = MeasurementBatch.Status.DUPLICATE;
+            }
         }
+        return added;
+    }
+
+    /**
+     * Check a range of rows of a batch and add them or not
+     *
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch, filled for the range
+     * @param add    True to add the valid rows, false to only check them
+     * @return Returns the number of added rows, or that would be added
+     */
+    private int checkRows(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status, boolean add) {
+        int added = 0;
+        String lastUnit = null;
+        boolean lastUnitValid = false;
+        for (int row = from; row < to; row++) {
+            String unit = batch.getUnit(row);
+            if (unit == null) {
+                status[row] = MeasurementBatch.Status.INVALID_UNIT;
+                continue;
+            }
+            if (!unit.equals(lastUnit)) {
+                lastUnit = unit;
+                lastUnitValid = isUnitValid(unit);
+            }
 
-        return unit;
+            long epochMinute = batch.getEpochMinute(row);
+            double value = batch.getValue(row);
+            if (!lastUnitValid) {
+                status[row] = MeasurementBatch.Status.INVALID_UNIT;
+            } else if (epochMinute == MeasurementBatch.NO_TIME) {
+                status[row] = MeasurementBatch.Status.INVALID_DATE;
+            } else if (!Measurement.validateValueBounds(value)) {
+                status[row] = MeasurementBatch.Status.INVALID_VALUE;
+            } else if (add ? addElement(epochMinute, value) : !containsElement(epochMinute, value)) {
+                status[row] = MeasurementBatch.Status.ADDED;
+                added++;
+            } else {
+                status[row] = MeasurementBatch.Status.DUPLICATE;
+            }
+        }
+        return added;
     }
 
     /**
@@ -219,18 +332,54 @@ public class Sensor implements ISensor {
      */
     @Override
     public boolean addMeasurement(double value, LocalDateTime localDateTime, String unit) throws SensorException, MeasurementException {
-        unit = convertMicroLatinSignToGreekIfAny(unit);
+        if (!isUnitValid(unit)) {
+            throw new SensorException("Invalid unit of measure for this sensor: " + sensorId);
+        }
+
+        Measurement.checkTime(localDateTime);
+
+        return addMeasurement(value, Measurement.toEpochMinute(localDateTime), parameter.getUnit());
+    }
 
-        // Accept edge case of Mbar
-        if (unit.equals("Mbar")) {
-            unit = unit.toLowerCase();
+    /**
+     * Add a reading with an already resolved unit and time
+     *
+     * @param value       The read value
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param unit        The {@link Unit unit} of the value, null for a unit that couldn't be resolved
+     * @return Returns true if the reading was stored, false if the sensor already had it
+     * @throws SensorException      Throws this exception if the unit isn't the unit of the sensor {@link Parameter}
+     * @throws MeasurementException Throws this exception if the value is out of bounds
+     * @apiNote The unit is only compared, resolve feed strings once with {@link UnitResolver#resolve(String)}
+     */
+    public boolean addMeasurement(double value, long epochMinute, Unit unit) throws SensorException, MeasurementException {
+        if (!checkMeasurement(value, epochMinute, unit)) {
+            return false;
         }
 
-        if (parameter.getUnit() != Unit.getUnitFromString(unit)) {
+        appendElement(epochMinute, value);
+        return true;
+    }
+
+    /**
+     * Check a reading with an already resolved unit and time without adding it
+     *
+     * @param value       The read value
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param unit        The {@link Unit unit} of the value, null for a unit that couldn't be resolved
+     * @return Returns true if the reading can be added with {@link #appendElement(long, double)},
+     * false if the sensor already has it
+     * @throws SensorException      Throws this exception if the unit isn't the unit of the sensor {@link Parameter}
+     * @throws MeasurementException Throws this exception if the value is out of bounds
+     */
+    boolean checkMeasurement(double value, long epochMinute, Unit unit) throws SensorException, MeasurementException {
+        if (unit != parameter.getUnit()) {
             throw new SensorException("Invalid unit of measure for this sensor: " + sensorId);
         }
 
-        return addElement(new Measurement(value, localDateTime));
+        Measurement.checkValue(value);
+
+        return !containsElement(epochMinute, value);
     }
 
 
@@ -239,7 +388,7 @@ public class Sensor implements ISensor {
      */
     @Override
     public int getNumMeasurements() {
-        return numMeasurements;
+        return measurements.size();
     }
 
     /**
@@ -247,9 +396,77 @@ public class Sensor implements ISensor {
      */
     @Override
     public IMeasurement[] getMeasurements() {
-        if (numMeasurements == 0) return new IMeasurement[]{}.clone();
+        return readings.getMeasurements();
+    }
+
+    /**
+     * Get the store of the readings in insertion order
+     *
+     * @return Returns the {@link MeasurementStore} of the sensor
+     */
+    MeasurementStore getMeasurementStore() {
+        return measurements;
+    }
+
+    /**
+     * Get the view of the live readings, which changes as readings are added
+     *
+     * @return Returns the {@link SensorReadings} of the sensor
+     */
+    SensorReadings getReadings() {
+        return readings;
+    }
+
+    /**
+     * Get a view of the readings added so far that later readings don't change
+     *
+     * @param totalsOnly True when only {@link SensorReadings#aggregateInto(Aggregate)} will be called,
+     *                   the readings and buckets are then left out
+     * @return Returns the {@link SensorReadings} of the snapshot
+     * @implNote Takes constant time and needs the same exclusive access as adding a reading.
+     * The snapshot can then be read without it, by a single thread, as its {@link TimeIndex} sorts lazily.
+     */
+    SensorReadings snapshot(boolean totalsOnly) {
+        Aggregate totalsCopy = new Aggregate();
+        totalsCopy.merge(totals);
+        if (totalsOnly) {
+            return new SensorReadings(this, null, null, totalsCopy, null);
+        }
+
+        MeasurementStore store = measurements.snapshot();
+        TimeBuckets[] bucketsCopy = new TimeBuckets[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            bucketsCopy[i] = buckets[i].snapshot();
+        }
 
-        return measurements.clone();
+        return new SensorReadings(this, store, timeIndex.snapshot(store), totalsCopy, bucketsCopy);
+    }
+
+    /**
+     * Aggregate every stored reading
+     *
+     * @return Returns a copy of the {@link Aggregate} of the readings
+     * @implNote The totals are kept up to date on every insert, so no reading is read
+     */
+    public Aggregate aggregate() {
+        Aggregate aggregate = new Aggregate();
+        readings.aggregateInto(aggregate);
+        return aggregate;
+    }
+
+    /**
+     * Aggregate the readings of a time window
+     *
+     * @param fromMinute The inclusive start of the window in minutes since the epoch
+     * @param toMinute   The exclusive end of the window in minutes since the epoch
+     * @return Returns an {@link Aggregate} of the readings inside the window
+     * @implNote Whole months and days inside the window are read from the buckets,
+     * only the readings at the edges of the window are read one by one
+     */
+    public Aggregate aggregate(long fromMinute, long toMinute) {
+        Aggregate aggregate = new Aggregate();
+        readings.aggregateInto(fromMinute, toMinute, aggregate);
+        return aggregate;
     }
 
     /**
@@ -275,7 +492,7 @@ public class Sensor implements ISensor {
                 ", sensorId='" + sensorId + '\'' +
                 ", cartesianCoordinates=" + cartesianCoordinates +
                 ", geographicCoordinates=" + geographicCoordinates +
-                ", numMeasurements=" + numMeasurements +
+                ", numMeasurements=" + measurements.size() +
                 '}';
     }
 }
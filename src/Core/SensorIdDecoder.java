@@ -0,0 +1,226 @@
+package Core;
+
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.SensorType;
+
+import java.util.Arrays;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Decodes the {@link SensorType} and {@link Parameter} of a sensor id
+ *
+ * @implNote The type is read from a table indexed by the first two letters.
+ * The parameter names of each type, and "PM25" as the last choice, are compiled into an Aho-Corasick automaton,
+ * a table of transitions by ASCII character that finds every name the id contains in a single pass over it.
+ * The name that comes first in {@link SensorType#getParameters()} wins, as when each name was searched in turn.
+ * Every type and parameter pair has a single shared {@link Decoded} result, so decoding allocates nothing
+ * and threads can decode without locking.
+ */
+public final class SensorIdDecoder {
+    private static final int LETTERS = 26;
+    private static final int ASCII = 128;
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private static final String[] TYPE_PREFIXES = {"QA", "RU", "ME"};
+    private static final SensorType[] PREFIX_TYPES = {SensorType.AIR, SensorType.NOISE, SensorType.WEATHER};
+
+    /**
+     * Type and parameter of a sensor id, either is null when it can't be identified
+     */
+    public static final class Decoded {
+        private final SensorType sensorType;
+        private final Parameter parameter;
+
+        /**
+         * Constructor for {@link Decoded}
+         *
+         * @param sensorType The {@link SensorType sensorType} or null
+         * @param parameter  The {@link Parameter parameter} or null
+         */
+        private Decoded(SensorType sensorType, Parameter parameter) {
+            this.sensorType = sensorType;
+            this.parameter = parameter;
+        }
+
+        /**
+         * Get the type of the sensor
+         *
+         * @return Returns the {@link SensorType} or null if it couldn't be identified
+         */
+        public SensorType getSensorType() {
+            return sensorType;
+        }
+
+        /**
+         * Get the parameter of the sensor
+         *
+         * @return Returns the {@link Parameter} or null if it couldn't be identified
+         */
+        public Parameter getParameter() {
+            return parameter;
+        }
+    }
+
+    /**
+     * Automaton that finds the parameter names of a {@link SensorType} in an id
+     */
+    private static final class Automaton {
+        private final int[] transitions;
+        private final int[] choices;
+
+        /**
+         * Constructor for {@link Automaton}
+         *
+         * @param names The names to find, a name found earlier in the array wins
+         */
+        private Automaton(String[] names) {
+            int maxStates = 1;
+            for (String name : names) {
+                maxStates += name.length();
+            }
+
+            // Trie of the names, state 0 is the root and -1 a missing child
+            int[] next = new int[maxStates * ASCII];
+            int[] choice = new int[maxStates];
+            Arrays.fill(next, -1);
+            Arrays.fill(choice, NONE);
+            int nStates = 1;
+            for (int i = 0; i < names.length; i++) {
+                int state = 0;
+                for (int c = 0; c < names[i].length(); c++) {
+                    int slot = state * ASCII + names[i].charAt(c);
+                    if (next[slot] < 0) {
+                        next[slot] = nStates++;
+                    }
+                    state = next[slot];
+                }
+                choice[state] = Math.min(choice[state], i);
+            }
+
+            // Breadth first, the fallback of a state is always closer to the root than the state
+            int[] fallback = new int[nStates];
+            int[] queue = new int[nStates];
+            int head = 0, tail = 0;
+            for (int c = 0; c < ASCII; c++) {
+                if (next[c] < 0) {
+                    next[c] = 0;
+                } else {
+                    fallback[next[c]] = 0;
+                    queue[tail++] = next[c];
+                }
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                choice[state] = Math.min(choice[state], choice[fallback[state]]);
+                for (int c = 0; c < ASCII; c++) {
+                    int slot = state * ASCII + c;
+                    if (next[slot] < 0) {
+                        next[slot] = next[fallback[state] * ASCII + c];
+                    } else {
+                        fallback[next[slot]] = next[fallback[state] * ASCII + c];
+                        queue[tail++] = next[slot];
+                    }
+                }
+            }
+
+            transitions = Arrays.copyOf(next, nStates * ASCII);
+            choices = Arrays.copyOf(choice, nStates);
+        }
+
+        /**
+         * Find the winning name in an id
+         *
+         * @param sensorId The id
+         * @return Returns the position of the name or {@link #NONE} if the id contains none
+         */
+        private int find(String sensorId) {
+            int state = 0;
+            int best = NONE;
+            for (int i = 0; i < sensorId.length(); i++) {
+                char c = sensorId.charAt(i);
+                state = c < ASCII ? transitions[state * ASCII + c] : 0;
+                best = Math.min(best, choices[state]);
+            }
+            return best;
+        }
+    }
+
+    private static final SensorType[] TYPES_BY_PREFIX = new SensorType[LETTERS * LETTERS];
+    private static final Automaton[] AUTOMATA = new Automaton[SensorType.values().length];
+    private static final Decoded[][] RESULTS = new Decoded[SensorType.values().length][];
+    private static final Decoded UNKNOWN = new Decoded(null, null);
+
+    static {
+        for (int i = 0; i < TYPE_PREFIXES.length; i++) {
+            TYPES_BY_PREFIX[prefixIndex(TYPE_PREFIXES[i])] = PREFIX_TYPES[i];
+        }
+
+        for (SensorType sensorType : SensorType.values()) {
+            Parameter[] parameters = sensorType.getParameters();
+            Parameter[] choices = new Parameter[parameters.length + 1];
+            String[] names = new String[parameters.length + 1];
+            for (int i = 0; i < parameters.length; i++) {
+                choices[i] = parameters[i];
+                names[i] = parameters[i].toString();
+            }
+
+            // Ids of PM2.5 sensors spell it without the underscore
+            choices[parameters.length] = Parameter.PM2_5;
+            names[parameters.length] = "PM25";
+
+            AUTOMATA[sensorType.ordinal()] = new Automaton(names);
+
+            // The last result is the type without a parameter
+            Decoded[] results = new Decoded[choices.length + 1];
+            for (int i = 0; i < choices.length; i++) {
+                results[i] = new Decoded(sensorType, choices[i]);
+            }
+            results[choices.length] = new Decoded(sensorType, null);
+            RESULTS[sensorType.ordinal()] = results;
+        }
+    }
+
+    private SensorIdDecoder() {
+    }
+
+    /**
+     * Get the position of two letters in the prefix table
+     *
+     * @param sensorId The id, at least two characters long
+     * @return Returns the position or -1 if the first two characters aren't upper case letters
+     */
+    private static int prefixIndex(String sensorId) {
+        int first = sensorId.charAt(0) - 'A';
+        int second = sensorId.charAt(1) - 'A';
+        if (first < 0 || first >= LETTERS || second < 0 || second >= LETTERS) {
+            return -1;
+        }
+        return first * LETTERS + second;
+    }
+
+    /**
+     * Decode a sensor id
+     *
+     * @param sensorId The id, with a length checked by {@link Sensor#isSensorIdLengthValid(String)}
+     * @return Returns the {@link Decoded decoded} type and parameter
+     */
+    public static Decoded decode(String sensorId) {
+        int index = prefixIndex(sensorId);
+        SensorType sensorType = index < 0 ? null : TYPES_BY_PREFIX[index];
+        if (sensorType == null) {
+            return UNKNOWN;
+        }
+        int choice = AUTOMATA[sensorType.ordinal()].find(sensorId);
+        Decoded[] results = RESULTS[sensorType.ordinal()];
+        return results[choice == NONE ? results.length - 1 : choice];
+    }
+}
@@ -0,0 +1,163 @@
+package Core;
+
+import edu.ma02.core.interfaces.IMeasurement;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * The readings of a {@link Sensor} as seen by the statistics, with its totals, time index and buckets
+ *
+ * @implNote A {@link Sensor} reads through the view of its live readings, see {@link Sensor#getReadings()}.
+ * A {@link Sensor#snapshot() snapshot} doesn't change: its store, index and buckets are read-only views
+ * taken together, so it can be aggregated by another thread while the sensor keeps receiving readings.
+ * A snapshot of the totals only has no store, index or buckets, only {@link #aggregateInto(Aggregate)} works.
+ */
+public class SensorReadings {
+    private final Sensor sensor;
+    private final MeasurementStore measurements;
+    private final TimeIndex timeIndex;
+    private final Aggregate totals;
+    private final TimeBuckets[] buckets;
+
+    /**
+     * Constructor for {@link SensorReadings}
+     *
+     * @param sensor       The {@link Sensor sensor} of the readings
+     * @param measurements The {@link MeasurementStore store} of the readings or null for the totals only
+     * @param timeIndex    The {@link TimeIndex} of the store or null for the totals only
+     * @param totals       The {@link Aggregate} of every reading
+     * @param buckets      The {@link TimeBuckets} from the finest to the coarsest granularity
+     *                     or null for the totals only
+     */
+    SensorReadings(Sensor sensor, MeasurementStore measurements, TimeIndex timeIndex, Aggregate totals,
+                   TimeBuckets[] buckets) {
+        this.sensor = sensor;
+        this.measurements = measurements;
+        this.timeIndex = timeIndex;
+        this.totals = totals;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Get the {@link Sensor} of the readings
+     *
+     * @return Returns the {@link Sensor}
+     */
+    Sensor getSensor() {
+        return sensor;
+    }
+
+    /**
+     * Get the readings in the order they were added
+     *
+     * @return Returns an array of {@link IMeasurement}
+     */
+    IMeasurement[] getMeasurements() {
+        IMeasurement[] views = new IMeasurement[measurements.size()];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = new Measurement(measurements.getValue(i), measurements.getTime(i));
+        }
+
+        return views;
+    }
+
+    /**
+     * Merge every reading into an {@link Aggregate}
+     *
+     * @param aggregate The {@link Aggregate aggregate} to merge into
+     * @implNote The totals are kept up to date on every insert, so no reading is read
+     */
+    void aggregateInto(Aggregate aggregate) {
+        aggregate.merge(totals);
+    }
+
+    /**
+     * Merge the readings of a time window into an {@link Aggregate}
+     *
+     * @param fromMinute The inclusive start of the window in minutes since the epoch
+     * @param toMinute   The exclusive end of the window in minutes since the epoch
+     * @param aggregate  The {@link Aggregate aggregate} to merge into
+     * @implNote Whole months and days inside the window are read from the {@link #buckets},
+     * only the readings at the edges of the window are read one by one
+     */
+    void aggregateInto(long fromMinute, long toMinute, Aggregate aggregate) {
+        if (measurements.size() == 0) return;
+
+        // Nothing exists outside the stored readings, this also keeps the calendar math in range
+        fromMinute = Math.max(fromMinute, timeIndex.getTime(0));
+        toMinute = Math.min(toMinute, timeIndex.getTime(measurements.size() - 1) + 1);
+
+        aggregateRange(buckets.length - 1, fromMinute, toMinute, aggregate);
+    }
+
+    /**
+     * Copy the values of the readings of a time window
+     *
+     * @param fromMinute The inclusive start of the window in minutes since the epoch
+     * @param toMinute   The exclusive end of the window in minutes since the epoch
+     * @param target     The array to copy into, with room for every reading of the window
+     * @param offset     The first position of the array to write
+     * @return Returns the position after the last copied value
+     * @apiNote Size the array with the count of {@link #aggregateInto(long, long, Aggregate)}
+     */
+    int copyValues(long fromMinute, long toMinute, double[] target, int offset) {
+        if (measurements.size() == 0 || fromMinute >= toMinute) return offset;
+
+        int begin = timeIndex.lowerBound(fromMinute);
+        int end = timeIndex.lowerBound(toMinute);
+        for (int rank = begin; rank < end; rank++) {
+            target[offset++] = measurements.getValue(timeIndex.position(rank));
+        }
+        return offset;
+    }
+
+    /**
+     * Aggregate a time window with the buckets of a level and below
+     *
+     * @param level      The position of the coarsest {@link TimeBuckets} to use, -1 to only read readings
+     * @param fromMinute The inclusive start of the window in minutes since the epoch
+     * @param toMinute   The exclusive end of the window in minutes since the epoch
+     * @param aggregate  The {@link Aggregate aggregate} to merge into
+     */
+    private void aggregateRange(int level, long fromMinute, long toMinute, Aggregate aggregate) {
+        if (fromMinute >= toMinute) return;
+
+        if (level < 0) {
+            int begin = timeIndex.lowerBound(fromMinute);
+            int end = timeIndex.lowerBound(toMinute);
+            if (timeIndex.isStoreOrder()) {
+                // The readings of the window are contiguous in the store
+                measurements.aggregate(begin, end, aggregate);
+            } else {
+                for (int rank = begin; rank < end; rank++) {
+                    aggregate.add(measurements.getValue(timeIndex.position(rank)));
+                }
+            }
+            return;
+        }
+
+        TimeBuckets.Granularity granularity = buckets[level].getGranularity();
+
+        // Whole buckets are the ones from the first that starts inside the window to the one that holds its end
+        long firstBucket = granularity.bucketOf(fromMinute);
+        if (granularity.startOf(firstBucket) < fromMinute) firstBucket++;
+        long lastBucket = granularity.bucketOf(toMinute);
+
+        if (firstBucket >= lastBucket) {
+            aggregateRange(level - 1, fromMinute, toMinute, aggregate);
+            return;
+        }
+
+        aggregateRange(level - 1, fromMinute, granularity.startOf(firstBucket), aggregate);
+        buckets[level].aggregate(firstBucket, lastBucket, aggregate);
+        aggregateRange(level - 1, granularity.startOf(lastBucket), toMinute, aggregate);
+    }
+}
@@ -1,5 +1,7 @@
 package Core;
 
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.enumerations.Unit;
 import edu.ma02.core.exceptions.MeasurementException;
 import edu.ma02.core.exceptions.SensorException;
 import edu.ma02.core.exceptions.StationException;
@@ -21,12 +23,42 @@ public class Station implements IStation {
     // Stations only exists when framed within a city
 
     private final String name;
+    private final City city;
     private Sensor[] sensors;
     private int elements = 0;
+    private final NameIndex<Sensor> sensorsById;
+    private final PartitionIndex<Sensor> sensorsByParameter;
 
-    protected Station(String name) {
+    /**
+     * What is done to the rows of a batch
+     */
+    private enum Step {
+        /**
+         * Check and add the valid rows
+         */
+        ADD,
+        /**
+         * Check the rows without adding them
+         */
+        CHECK,
+        /**
+         * Add the rows a check accepted
+         */
+        APPLY
+    }
+
+    /**
+     * Constructor for {@link Station}
+     *
+     * @param name The name of the station
+     * @param city The {@link City city} that owns the station, told about every added {@link Sensor}
+     */
+    protected Station(String name, City city) {
         this.name = name;
+        this.city = city;
         sensors = new Sensor[10];
+        sensorsById = new NameIndex<>();
+        sensorsByParameter = new PartitionIndex<>(Parameter.values().length);
     }
 
     /**
@@ -47,13 +79,7 @@ public class Station implements IStation {
     private boolean exists(Sensor sensor) {
         if (sensor == null) return false;
 
-        for (int i = 0; i < elements; i++) {
-            if (sensors[i].equals(sensor)) {
-                return true;
-            }
-        }
-
-        return false;
+        return sensorsById.get(sensor.getId()) != null;
     }
 
     /**
@@ -63,13 +89,7 @@ public class Station implements IStation {
      * @return Returns an instance of {@link ISensor} if found, null otherwise
      */
     private ISensor getSensorById(String sensorId) {
-        for (int i = 0; i < elements; i++) {
-            if (sensors[i].getId().equals(sensorId)) {
-                return sensors[i];
-            }
-        }
-
-        return null;
+        return sensorsById.get(sensorId);
     }
 
     /**
@@ -87,6 +107,9 @@ public class Station implements IStation {
         }
 
         sensors[elements++] = sensor;
+        sensorsById.put(sensor.getId(), sensor);
+        sensorsByParameter.add(sensor.getParameter().ordinal(), sensor);
+        city.sensorAdded(this, sensor);
         return true;
     }
 
@@ -123,12 +146,160 @@ public class Station implements IStation {
             throw new StationException("Parameters can't be NULL");
         }
 
-        ISensor sensor = getSensorById(sensorId);
+        return addMeasurement(sensorId, value, Measurement.toEpochMinute(date), UnitResolver.resolve(unit));
+    }
+
+    /**
+     * Add a reading with an already resolved unit and time to a sensor of the station
+     *
+     * @param sensorId    The id of the sensor
+     * @param value       The read value
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param unit        The {@link Unit unit} of the value, null for a unit that couldn't be resolved
+     * @return Returns true if the reading was stored, false if the sensor already had it
+     * @throws StationException     Throws this exception if the id is null or the sensor doesn't exist
+     * @throws SensorException      Throws this exception if the unit isn't the unit of the sensor
+     * @throws MeasurementException Throws this exception if the value is out of bounds
+     */
+    public boolean addMeasurement(String sensorId, double value, long epochMinute, Unit unit) throws StationException, SensorException, MeasurementException {
+        if (sensorId == null) {
+            throw new StationException("Parameters can't be NULL");
+        }
+
+        Sensor sensor = checkMeasurement(sensorId, value, epochMinute, unit);
+        if (sensor == null) {
+            return false;
+        }
+
+        applyMeasurement(sensor, value, epochMinute);
+        return true;
+    }
+
+    /**
+     * Check a reading with an already resolved unit and time without adding it
+     *
+     * @param sensorId    The id of the sensor
+     * @param value       The read value
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param unit        The {@link Unit unit} of the value, null for a unit that couldn't be resolved
+     * @return Returns the {@link Sensor} to give to {@link #applyMeasurement} or null if the sensor already has it
+     * @throws StationException     Throws this exception if the id is null or the sensor doesn't exist
+     * @throws SensorException      Throws this exception if the unit isn't the unit of the sensor
+     * @throws MeasurementException Throws this exception if the value is out of bounds
+     */
+    Sensor checkMeasurement(String sensorId, double value, long epochMinute, Unit unit) throws StationException, SensorException, MeasurementException {
+        if (sensorId == null) {
+            throw new StationException("Parameters can't be NULL");
+        }
+
+        Sensor sensor = sensorsById.get(sensorId);
         if (sensor == null) {
             throw new StationException("Sensor doesn't exists");
         }
 
-        return sensor.addMeasurement(value, date, unit);
+        return sensor.checkMeasurement(value, epochMinute, unit) ? sensor : null;
+    }
+
+    /**
+     * Add a reading checked by {@link #checkMeasurement}
+     *
+     * @param sensor      The {@link Sensor sensor} returned by the check
+     * @param value       The read value
+     * @param epochMinute The time of the reading in minutes since the epoch
+     */
+    void applyMeasurement(Sensor sensor, double value, long epochMinute) {
+        sensor.appendElement(epochMinute, value);
+        city.readingsChanged(this, sensor);
+    }
+
+    /**
+     * Add a batch of readings to the sensors of the station, the stations of the rows are not used
+     *
+     * @param batch The {@link MeasurementBatch batch} of readings
+     * @return Returns the {@link MeasurementBatch.Status status} of each row
+     * @apiNote Unlike {@link #addMeasurement} invalid rows don't throw, their status tells what is wrong
+     */
+    public MeasurementBatch.Status[] addMeasurements(MeasurementBatch batch) {
+        MeasurementBatch.Status[] status = new MeasurementBatch.Status[batch.size()];
+        addMeasurements(batch, 0, batch.size(), status);
+        return status;
+    }
+
+    /**
+     * Add a range of rows of a batch, the sensor is looked up once for each group of rows
+     *
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch, filled for the range
+     * @return Returns the number of added readings
+     */
+    int addMeasurements(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status) {
+        return addRows(batch, from, to, status, Step.ADD);
+    }
+
+    /**
+     * Check a range of rows of a batch without adding them
+     *
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch, filled for the range,
+     *               {@link MeasurementBatch.Status#ADDED} for the rows {@link #applyMeasurements} would add
+     * @return Returns the number of rows that would be added
+     */
+    int checkMeasurements(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status) {
+        return addRows(batch, from, to, status, Step.CHECK);
+    }
+
+    /**
+     * Add the rows of a range checked by {@link #checkMeasurements}
+     *
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch, updated for the range
+     * @return Returns the number of added readings
+     */
+    int applyMeasurements(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status) {
+        return addRows(batch, from, to, status, Step.APPLY);
+    }
+
+    /**
+     * Walk a range of rows of a batch, the sensor is looked up once for each group of rows
+     *
+     * @param batch  The {@link MeasurementBatch batch} of readings
+     * @param from   The first row
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of each row of the batch
+     * @param step   The {@link Step step} done to the rows
+     * @return Returns the number of added rows, or that would be added
+     */
+    private int addRows(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status, Step step) {
+        int added = 0;
+
+        for (int row = from; row < to; ) {
+            int end = Math.min(batch.groupEnd(row, false), to);
+
+            Sensor sensor = sensorsById.get(batch.getSensorId(row));
+            if (sensor == null) {
+                for (int i = row; i < end; i++) {
+                    status[i] = MeasurementBatch.Status.SENSOR_NOT_FOUND;
+                }
+            } else if (step == Step.CHECK) {
+                added += sensor.checkMeasurements(batch, row, end, status);
+            } else {
+                int groupAdded = step == Step.ADD ? sensor.addMeasurements(batch, row, end, status)
+                        : sensor.applyMeasurements(batch, row, end, status);
+                if (groupAdded > 0) {
+                    city.readingsChanged(this, sensor);
+                }
+                added += groupAdded;
+            }
+
+            row = end;
+        }
+        return added;
     }
 
     /**
@@ -136,9 +307,64 @@ public class Station implements IStation {
      */
     @Override
     public ISensor[] getSensors() {
-        if (elements == 0) return new ISensor[]{}.clone();
+        // Exactly sized, the caller can't see or change the free slots
+        ISensor[] copy = new ISensor[elements];
+        System.arraycopy(sensors, 0, copy, 0, elements);
+        return copy;
+    }
 
-        return sensors.clone();
+    /**
+     * Get the number of {@link Sensor sensors} of the station
+     *
+     * @return Returns the number of sensors
+     * @implNote With {@link #getSensorAt(int)} lets the statistics walk the sensors without copying them
+     */
+    int getNumSensors() {
+        return elements;
+    }
+
+    /**
+     * Get a {@link Sensor} by position
+     *
+     * @param index The position of the sensor, in the order they were added
+     * @return Returns the {@link Sensor}
+     */
+    Sensor getSensorAt(int index) {
+        return sensors[index];
+    }
+
+    /**
+     * Get the {@link Sensor sensors} of a {@link Parameter}
+     *
+     * @param parameter The {@link Parameter parameter} of the sensors
+     * @return Returns an exactly sized array with the sensors, in the order they were added
+     */
+    public ISensor[] getSensors(Parameter parameter) {
+        ISensor[] copy = new ISensor[sensorsByParameter.size(parameter.ordinal())];
+        sensorsByParameter.copyInto(parameter.ordinal(), copy);
+        return copy;
+    }
+
+    /**
+     * Get the number of {@link Sensor sensors} of a {@link Parameter}
+     *
+     * @param parameter The {@link Parameter parameter} of the sensors
+     * @return Returns the number of sensors
+     * @implNote With {@link #getSensorAt(Parameter, int)} lets the statistics only walk the sensors they use
+     */
+    int getNumSensors(Parameter parameter) {
+        return sensorsByParameter.size(parameter.ordinal());
+    }
+
+    /**
+     * Get a {@link Sensor} of a {@link Parameter} by position
+     *
+     * @param parameter The {@link Parameter parameter} of the sensor
+     * @param index     The position of the sensor among the ones of the parameter, in the order they were added
+     * @return Returns the {@link Sensor}
+     */
+    Sensor getSensorAt(Parameter parameter, int index) {
+        return sensorsByParameter.get(parameter.ordinal(), index);
     }
 
     /**
@@ -0,0 +1,366 @@
+package Core;
+
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.interfaces.IStatistics;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Bounded least recently used cache of the statistics of a {@link City}
+ *
+ * @implNote Entries are invalidated lazily by modification stamps instead of being searched on every write:
+ * every change of the readings of a station and {@link Parameter} takes the next stamp and records it
+ * for that station and parameter and for the parameter in the whole city.
+ * An entry is only used while it is newer than the last change of what it covers,
+ * the last change of the parameter for results of every station
+ * and the last change of the station and parameter for results of one station.
+ * Stale entries are dropped when found or when they become the least recently used.
+ * Every method is synchronized, so a {@link ConcurrentCity} can share the cache between threads.
+ */
+public class StatisticsCache {
+    private static final int N_PARAMETERS = Parameter.values().length;
+
+    /**
+     * A cached result, linked in its hash bucket and in the recency list
+     */
+    private static class Entry {
+        private final AggregationOperator aggregationOperator;
+        private final Parameter parameter;
+        private final String stationName;
+        private final long fromMinute;
+        private final long toMinute;
+        private final int hash;
+        private IStatistics[] statistics;
+        private long stamp;
+        private Entry nextInBucket;
+        private Entry newer;
+        private Entry older;
+
+        /**
+         * Constructor for {@link Entry}
+         *
+         * @param aggregationOperator The {@link AggregationOperator aggregationOperator} of the result
+         * @param parameter           The {@link Parameter parameter} of the result
+         * @param stationName         The station of a result by sensor or null for a result by station
+         * @param fromMinute          The inclusive start of the window
+         * @param toMinute            The exclusive end of the window
+         * @param hash                The hash of the key
+         */
+        private Entry(AggregationOperator aggregationOperator, Parameter parameter, String stationName,
+                      long fromMinute, long toMinute, int hash) {
+            this.aggregationOperator = aggregationOperator;
+            this.parameter = parameter;
+            this.stationName = stationName;
+            this.fromMinute = fromMinute;
+            this.toMinute = toMinute;
+            this.hash = hash;
+        }
+
+        /**
+         * Check if the entry has a key
+         *
+         * @return Returns true if every part of the key is the same
+         */
+        private boolean matches(AggregationOperator aggregationOperator, Parameter parameter, String stationName,
+                                long fromMinute, long toMinute) {
+            return this.aggregationOperator == aggregationOperator && this.parameter == parameter
+                    && this.fromMinute == fromMinute && this.toMinute == toMinute
+                    && (this.stationName == null ? stationName == null : this.stationName.equals(stationName));
+        }
+    }
+
+    private final int capacity;
+    private final Entry[] buckets;
+    private final Entry recency;
+    private final long[] parameterStamps;
+    private final NameIndex<long[]> stationStamps;
+    private long lastStamp = 0;
+    private int size = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Constructor for {@link StatisticsCache}
+     *
+     * @param capacity The maximum number of cached results
+     */
+    public StatisticsCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        int nBuckets = 1;
+        while (nBuckets < capacity * 2) {
+            nBuckets <<= 1;
+        }
+        buckets = new Entry[nBuckets];
+
+        // Sentinel of the circular recency list, the entry older than it is the most recently used
+        // and the entry newer than it, wrapping around, the least recently used
+        recency = new Entry(null, null, null, 0, 0, 0);
+        recency.newer = recency;
+        recency.older = recency;
+
+        parameterStamps = new long[N_PARAMETERS];
+        stationStamps = new NameIndex<>();
+    }
+
+    /**
+     * Hash a key
+     *
+     * @return Returns the spread hash of every part of the key
+     */
+    private static int hash(AggregationOperator aggregationOperator, Parameter parameter, String stationName,
+                            long fromMinute, long toMinute) {
+        int h = aggregationOperator.ordinal();
+        h = h * 31 + parameter.ordinal();
+        h = h * 31 + (stationName == null ? 0 : stationName.hashCode());
+        h = h * 31 + Long.hashCode(fromMinute);
+        h = h * 31 + Long.hashCode(toMinute);
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Get the stamp of the last change covered by an entry
+     *
+     * @param entry The {@link Entry entry}
+     * @return Returns the stamp of the last change of its parameter or of its station and parameter
+     */
+    private long lastChangeOf(Entry entry) {
+        if (entry.stationName == null) {
+            return parameterStamps[entry.parameter.ordinal()];
+        }
+
+        long[] stamps = stationStamps.get(entry.stationName);
+        return stamps == null ? 0 : stamps[entry.parameter.ordinal()];
+    }
+
+    /**
+     * Find the entry of a key
+     *
+     * @return Returns the {@link Entry} or null if the key isn't cached
+     */
+    private Entry find(AggregationOperator aggregationOperator, Parameter parameter, String stationName,
+                       long fromMinute, long toMinute, int hash) {
+        for (Entry entry = buckets[hash & (buckets.length - 1)]; entry != null; entry = entry.nextInBucket) {
+            if (entry.hash == hash && entry.matches(aggregationOperator, parameter, stationName, fromMinute, toMinute)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Unlink an entry from its bucket and from the recency list
+     *
+     * @param entry The {@link Entry entry} to remove
+     */
+    private void remove(Entry entry) {
+        int bucket = entry.hash & (buckets.length - 1);
+        if (buckets[bucket] == entry) {
+            buckets[bucket] = entry.nextInBucket;
+        } else {
+            Entry previous = buckets[bucket];
+            while (previous.nextInBucket != entry) {
+                previous = previous.nextInBucket;
+            }
+            previous.nextInBucket = entry.nextInBucket;
+        }
+
+        entry.older.newer = entry.newer;
+        entry.newer.older = entry.older;
+        size--;
+    }
+
+    /**
+     * Link an entry as the most recently used
+     *
+     * @param entry The {@link Entry entry}, not linked in the recency list
+     */
+    private void linkNewest(Entry entry) {
+        entry.newer = recency;
+        entry.older = recency.older;
+        recency.older.newer = entry;
+        recency.older = entry;
+    }
+
+    /**
+     * Get the stamp to give to a result computed from now on
+     *
+     * @return Returns the stamp of the last change
+     * @apiNote Read it before computing the result, so changes made while computing make the result stale
+     */
+    public synchronized long currentStamp() {
+        return lastStamp;
+    }
+
+    /**
+     * Get a cached result
+     *
+     * @param aggregationOperator The {@link AggregationOperator aggregationOperator} of the result
+     * @param parameter           The {@link Parameter parameter} of the result
+     * @param stationName         The station of a result by sensor or null for a result by station
+     * @param fromMinute          The inclusive start of the window
+     * @param toMinute            The exclusive end of the window
+     * @return Returns a copy of the result or null if it isn't cached or is stale
+     */
+    public synchronized IStatistics[] get(AggregationOperator aggregationOperator, Parameter parameter,
+                                          String stationName, long fromMinute, long toMinute) {
+        int hash = hash(aggregationOperator, parameter, stationName, fromMinute, toMinute);
+        Entry entry = find(aggregationOperator, parameter, stationName, fromMinute, toMinute, hash);
+
+        if (entry != null && entry.stamp < lastChangeOf(entry)) {
+            remove(entry);
+            invalidations++;
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        entry.older.newer = entry.newer;
+        entry.newer.older = entry.older;
+        linkNewest(entry);
+        return entry.statistics.clone();
+    }
+
+    /**
+     * Cache a result, evicting the least recently used one when the cache is full
+     *
+     * @param aggregationOperator The {@link AggregationOperator aggregationOperator} of the result
+     * @param parameter           The {@link Parameter parameter} of the result
+     * @param stationName         The station of a result by sensor or null for a result by station
+     * @param fromMinute          The inclusive start of the window
+     * @param toMinute            The exclusive end of the window
+     * @param statistics          The result, a copy is kept
+     * @param stamp               The {@link #currentStamp()} read before computing the result
+     */
+    public synchronized void put(AggregationOperator aggregationOperator, Parameter parameter, String stationName,
+                                 long fromMinute, long toMinute, IStatistics[] statistics, long stamp) {
+        int hash = hash(aggregationOperator, parameter, stationName, fromMinute, toMinute);
+        Entry entry = find(aggregationOperator, parameter, stationName, fromMinute, toMinute, hash);
+
+        if (entry != null) {
+            remove(entry);
+        } else if (size == capacity) {
+            remove(recency.newer);
+            evictions++;
+        }
+
+        entry = new Entry(aggregationOperator, parameter, stationName, fromMinute, toMinute, hash);
+        entry.statistics = statistics.clone();
+        entry.stamp = stamp;
+
+        int bucket = hash & (buckets.length - 1);
+        entry.nextInBucket = buckets[bucket];
+        buckets[bucket] = entry;
+        linkNewest(entry);
+        size++;
+    }
+
+    /**
+     * Record a change of the readings or sensors of a station and {@link Parameter}
+     *
+     * @param stationName The name of the station
+     * @param parameter   The {@link Parameter parameter} of the changed sensor
+     */
+    public synchronized void invalidate(String stationName, Parameter parameter) {
+        long stamp = ++lastStamp;
+        parameterStamps[parameter.ordinal()] = stamp;
+
+        long[] stamps = stationStamps.get(stationName);
+        if (stamps == null) {
+            stamps = new long[N_PARAMETERS];
+            stationStamps.put(stationName, stamps);
+        }
+        stamps[parameter.ordinal()] = stamp;
+    }
+
+    /**
+     * Remove every cached result, the counters are kept
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = null;
+        }
+        recency.newer = recency;
+        recency.older = recency;
+        size = 0;
+    }
+
+    /**
+     * Get the number of cached results, stale ones included until they are found
+     *
+     * @return Returns the number of entries
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of results answered from the cache
+     *
+     * @return Returns the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of results that had to be computed
+     *
+     * @return Returns the number of misses, stale entries included
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of results removed to make room for new ones
+     *
+     * @return Returns the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the number of stale results found and removed
+     *
+     * @return Returns the number of invalidated entries
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String toString() {
+        return "StatisticsCache{" +
+                "size=" + size +
+                ", capacity=" + capacity +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                '}';
+    }
+}
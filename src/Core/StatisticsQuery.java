@@ -0,0 +1,287 @@
+package Core;
+
+import edu.ma02.core.enumerations.AggregationOperator;
+import edu.ma02.core.enumerations.Parameter;
+
+import java.time.LocalDateTime;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Several statistics of the same readings, answered by {@link City#query(StatisticsQuery)} in a single pass
+ *
+ * @apiNote Every filter is optional: without a station every station is used, without a parameter
+ * every {@link Parameter} gets its own rows and without a window every reading is used.
+ * The window is exclusive on both ends, like the windows of {@link City#getMeasurementsByStation}.
+ */
+public class StatisticsQuery {
+
+    /**
+     * Statistic computed for every row of a {@link StatisticsTable}
+     */
+    public enum Operator {
+        AVG, MIN, MAX, COUNT, SUM,
+        /**
+         * Population standard deviation
+         */
+        STDDEV,
+        /**
+         * Percentiles with linear interpolation between the closest ranks
+         */
+        MEDIAN, P90, P95, P99;
+
+        /**
+         * Get the {@link Operator} of an {@link AggregationOperator}
+         *
+         * @param aggregationOperator The {@link AggregationOperator aggregationOperator}
+         * @return Returns the matching {@link Operator}
+         */
+        public static Operator of(AggregationOperator aggregationOperator) {
+            return switch (aggregationOperator) {
+                case AVG -> AVG;
+                case MIN -> MIN;
+                case MAX -> MAX;
+                case COUNT -> COUNT;
+            };
+        }
+
+        /**
+         * Check if the {@link Operator} needs every reading, not only the sum, minimum, maximum and count
+         *
+         * @return Returns true for {@link #STDDEV} and the percentiles
+         */
+        boolean needsReadings() {
+            return ordinal() >= STDDEV.ordinal();
+        }
+
+        /**
+         * Get the fraction of the readings below the percentile
+         *
+         * @return Returns the fraction or NaN if the {@link Operator} isn't a percentile
+         */
+        double percentile() {
+            return switch (this) {
+                case MEDIAN -> 0.5;
+                case P90 -> 0.9;
+                case P95 -> 0.95;
+                case P99 -> 0.99;
+                default -> Double.NaN;
+            };
+        }
+
+        /**
+         * Compute the {@link Operator} over a group of readings
+         *
+         * @param aggregate The {@link Aggregate} of the readings, with at least one reading
+         * @param readings  Every reading sorted by value, only needed when {@link #needsReadings()}
+         * @return Returns the value of the statistic
+         */
+        double apply(Aggregate aggregate, double[] readings) {
+            switch (this) {
+                case AVG:
+                    return aggregate.getAverage();
+                case MIN:
+                    return aggregate.getMin();
+                case MAX:
+                    return aggregate.getMax();
+                case COUNT:
+                    return aggregate.getCount();
+                case SUM:
+                    return aggregate.getSum();
+                case STDDEV:
+                    // Deviations from the mean, the sum of squares loses precision when the mean is big
+                    double mean = aggregate.getAverage();
+                    double squares = 0;
+                    for (double reading : readings) {
+                        squares += (reading - mean) * (reading - mean);
+                    }
+                    return Math.sqrt(squares / readings.length);
+                default:
+                    double rank = percentile() * (readings.length - 1);
+                    int lower = (int) rank;
+                    if (lower + 1 >= readings.length) return readings[lower];
+                    return readings[lower] + (rank - lower) * (readings[lower + 1] - readings[lower]);
+            }
+        }
+    }
+
+    private final Operator[] operators;
+    private String stationName;
+    private Parameter parameter;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private boolean bySensor = false;
+
+    /**
+     * Constructor for {@link StatisticsQuery}
+     *
+     * @param operators The {@link Operator operators} to compute, the columns of the result
+     * @throws IllegalArgumentException Throws this exception if there are no operators or one is null
+     */
+    public StatisticsQuery(Operator... operators) {
+        if (operators == null || operators.length == 0) {
+            throw new IllegalArgumentException("At least one operator is needed");
+        }
+        for (Operator operator : operators) {
+            if (operator == null) throw new IllegalArgumentException("Operators can't be NULL");
+        }
+        this.operators = operators.clone();
+    }
+
+    /**
+     * Constructor for {@link StatisticsQuery}
+     *
+     * @param aggregationOperators The {@link AggregationOperator aggregationOperators} to compute
+     * @throws IllegalArgumentException Throws this exception if there are no operators or one is null
+     */
+    public StatisticsQuery(AggregationOperator... aggregationOperators) {
+        this(toOperators(aggregationOperators));
+    }
+
+    /**
+     * Convert {@link AggregationOperator AggregationOperators} to {@link Operator Operators}
+     *
+     * @param aggregationOperators The {@link AggregationOperator aggregationOperators}
+     * @return Returns the matching {@link Operator Operators}
+     */
+    private static Operator[] toOperators(AggregationOperator[] aggregationOperators) {
+        if (aggregationOperators == null) return null;
+
+        Operator[] operators = new Operator[aggregationOperators.length];
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = aggregationOperators[i] == null ? null : Operator.of(aggregationOperators[i]);
+        }
+        return operators;
+    }
+
+    /**
+     * Only use one station
+     *
+     * @param stationName The name of the station or null for every station
+     */
+    public void setStation(String stationName) {
+        this.stationName = stationName;
+    }
+
+    /**
+     * Only use the sensors of a {@link Parameter}
+     *
+     * @param parameter The {@link Parameter parameter} or null for every parameter
+     */
+    public void setParameter(Parameter parameter) {
+        this.parameter = parameter;
+    }
+
+    /**
+     * Only use the readings strictly between two dates
+     *
+     * @param startDate The exclusive start of the window or null for no window
+     * @param endDate   The exclusive end of the window or null for no window
+     */
+    public void setWindow(LocalDateTime startDate, LocalDateTime endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    /**
+     * Choose one row per sensor instead of one row per station and parameter
+     *
+     * @param bySensor True for a row per sensor
+     */
+    public void setBySensor(boolean bySensor) {
+        this.bySensor = bySensor;
+    }
+
+    /**
+     * Get the {@link Operator operators} of the query
+     *
+     * @return Returns a copy of the operators, in the order of the columns
+     */
+    public Operator[] getOperators() {
+        return operators.clone();
+    }
+
+    /**
+     * Get the {@link Operator} of a column
+     *
+     * @param column The position of the column
+     * @return Returns the {@link Operator}
+     */
+    Operator getOperator(int column) {
+        return operators[column];
+    }
+
+    /**
+     * Get the number of {@link Operator operators}
+     *
+     * @return Returns the number of columns
+     */
+    int getNumOperators() {
+        return operators.length;
+    }
+
+    /**
+     * Check if any {@link Operator} needs every reading
+     *
+     * @return Returns true if the readings have to be read one by one
+     */
+    boolean needsReadings() {
+        for (Operator operator : operators) {
+            if (operator.needsReadings()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the station filter
+     *
+     * @return Returns the name of the station or null for every station
+     */
+    public String getStation() {
+        return stationName;
+    }
+
+    /**
+     * Get the {@link Parameter} filter
+     *
+     * @return Returns the {@link Parameter} or null for every parameter
+     */
+    public Parameter getParameter() {
+        return parameter;
+    }
+
+    /**
+     * Get the start of the window
+     *
+     * @return Returns the exclusive start or null for no window
+     */
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Get the end of the window
+     *
+     * @return Returns the exclusive end or null for no window
+     */
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Check if the result has a row per sensor
+     *
+     * @return Returns true for a row per sensor, false for a row per station and parameter
+     */
+    public boolean isBySensor() {
+        return bySensor;
+    }
+}
@@ -0,0 +1,204 @@
+package Core;
+
+import edu.ma02.core.enumerations.Parameter;
+import edu.ma02.core.interfaces.IStatistics;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Result of a {@link StatisticsQuery}, a row per station and parameter or per sensor and a column per operator
+ *
+ * @implNote Rows follow the order of the stations and, inside a station, the order of {@link Parameter#values()}
+ * or of the sensors. Rows without readings are left out.
+ */
+public class StatisticsTable {
+    private final StatisticsQuery.Operator[] operators;
+    private String[] stations;
+    private String[] sensors;
+    private Parameter[] parameters;
+    private double[] values;
+    private int rows = 0;
+
+    /**
+     * Constructor for {@link StatisticsTable}
+     *
+     * @param operators The {@link StatisticsQuery.Operator operators} of the columns
+     */
+    StatisticsTable(StatisticsQuery.Operator[] operators) {
+        this.operators = operators;
+        stations = new String[10];
+        sensors = new String[10];
+        parameters = new Parameter[10];
+        values = new double[10 * operators.length];
+    }
+
+    /**
+     * Grow the arrays of the rows
+     */
+    private void grow() {
+        String[] stationsCopy = new String[stations.length * 2];
+        String[] sensorsCopy = new String[sensors.length * 2];
+        Parameter[] parametersCopy = new Parameter[parameters.length * 2];
+        double[] valuesCopy = new double[values.length * 2];
+        System.arraycopy(stations, 0, stationsCopy, 0, rows);
+        System.arraycopy(sensors, 0, sensorsCopy, 0, rows);
+        System.arraycopy(parameters, 0, parametersCopy, 0, rows);
+        System.arraycopy(values, 0, valuesCopy, 0, rows * operators.length);
+        stations = stationsCopy;
+        sensors = sensorsCopy;
+        parameters = parametersCopy;
+        values = valuesCopy;
+    }
+
+    /**
+     * Add a row
+     *
+     * @param station   The name of the station
+     * @param sensor    The id of the sensor or null for a station row
+     * @param parameter The {@link Parameter parameter} of the readings
+     * @param row       The values, one per operator
+     */
+    void addRow(String station, String sensor, Parameter parameter, double[] row) {
+        if (rows == stations.length) {
+            grow();
+        }
+
+        stations[rows] = station;
+        sensors[rows] = sensor;
+        parameters[rows] = parameter;
+        System.arraycopy(row, 0, values, rows * operators.length, operators.length);
+        rows++;
+    }
+
+    /**
+     * Get the number of rows
+     *
+     * @return Returns the number of rows
+     */
+    public int getNumRows() {
+        return rows;
+    }
+
+    /**
+     * Get the {@link StatisticsQuery.Operator operators} of the columns
+     *
+     * @return Returns a copy of the operators
+     */
+    public StatisticsQuery.Operator[] getOperators() {
+        return operators.clone();
+    }
+
+    /**
+     * Get the station of a row
+     *
+     * @param row The position of the row
+     * @return Returns the name of the station
+     */
+    public String getStation(int row) {
+        checkRow(row);
+        return stations[row];
+    }
+
+    /**
+     * Get the sensor of a row
+     *
+     * @param row The position of the row
+     * @return Returns the id of the sensor or null for a row per station
+     */
+    public String getSensor(int row) {
+        checkRow(row);
+        return sensors[row];
+    }
+
+    /**
+     * Get the {@link Parameter} of a row
+     *
+     * @param row The position of the row
+     * @return Returns the {@link Parameter}
+     */
+    public Parameter getParameter(int row) {
+        checkRow(row);
+        return parameters[row];
+    }
+
+    /**
+     * Get a value of a row
+     *
+     * @param row      The position of the row
+     * @param operator The {@link StatisticsQuery.Operator operator} of the column
+     * @return Returns the value
+     * @throws IllegalArgumentException Throws this exception if the query didn't compute the operator
+     */
+    public double getValue(int row, StatisticsQuery.Operator operator) {
+        checkRow(row);
+        return values[row * operators.length + columnOf(operator)];
+    }
+
+    /**
+     * Get one column as {@link IStatistics}, like the methods of {@link edu.ma02.core.interfaces.ICityStatistics}
+     *
+     * @param operator The {@link StatisticsQuery.Operator operator} of the column
+     * @return Returns an exactly sized array with the sensor id or station name and the value of each row
+     * @throws IllegalArgumentException Throws this exception if the query didn't compute the operator
+     */
+    public IStatistics[] getStatistics(StatisticsQuery.Operator operator) {
+        int column = columnOf(operator);
+
+        IStatistics[] statistics = new IStatistics[rows];
+        for (int i = 0; i < rows; i++) {
+            statistics[i] = new Statistic(sensors[i] != null ? sensors[i] : stations[i],
+                    values[i * operators.length + column]);
+        }
+        return statistics;
+    }
+
+    /**
+     * Find the column of an {@link StatisticsQuery.Operator}
+     *
+     * @param operator The {@link StatisticsQuery.Operator operator}
+     * @return Returns the position of the column
+     */
+    private int columnOf(StatisticsQuery.Operator operator) {
+        for (int i = 0; i < operators.length; i++) {
+            if (operators[i] == operator) return i;
+        }
+        throw new IllegalArgumentException("Operator not in the query: " + operator);
+    }
+
+    /**
+     * Check that a row exists
+     *
+     * @param row The position of the row
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("StatisticsTable{");
+        for (int i = 0; i < rows; i++) {
+            builder.append(i == 0 ? "" : ", ").append(sensors[i] != null ? sensors[i] : stations[i])
+                    .append(' ').append(parameters[i]).append('=');
+            for (int j = 0; j < operators.length; j++) {
+                builder.append(j == 0 ? "[" : ", ").append(operators[j]).append(' ')
+                        .append(values[i * operators.length + j]);
+            }
+            builder.append(']');
+        }
+        return builder.append('}').toString();
+    }
+}
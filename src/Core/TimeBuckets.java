@@ -0,0 +1,261 @@
+package Core;
+
+import java.time.LocalDate;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Pre-aggregated sum, minimum, maximum and count of readings grouped by a calendar {@link Granularity}
+ *
+ * @implNote Buckets are kept sorted by key in parallel arrays, so readings that arrive in time order
+ * always update or append the last bucket. A reading older than the last bucket that needs a new bucket
+ * shifts the newer buckets, so a feed imported in reverse order costs O(buckets²) shifts in total.
+ * That is per bucket, not per reading: with day and month buckets ten years of readings are about 3,650 buckets.
+ * A {@link #snapshot()} shares the arrays and copies only the values of the last bucket, the one readings
+ * in time order keep updating. A reading added after it that updates an older bucket, or inserts one,
+ * copies the arrays first, so snapshots cost nothing to readings that arrive in time order.
+ */
+public class TimeBuckets {
+
+    /**
+     * Size of the buckets, every bucket boundary of a granularity is also a boundary of the finer ones
+     */
+    public enum Granularity {
+        DAY, MONTH;
+
+        private static final int MINUTES_PER_DAY = 24 * 60;
+
+        /**
+         * Get the key of the bucket that holds a time
+         *
+         * @param epochMinute The time in minutes since the epoch
+         * @return Returns the key of the bucket
+         */
+        public long bucketOf(long epochMinute) {
+            return switch (this) {
+                case DAY -> Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+                case MONTH -> {
+                    LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+                    yield date.getYear() * 12L + date.getMonthValue() - 1;
+                }
+            };
+        }
+
+        /**
+         * Get the first minute of a bucket
+         *
+         * @param bucket The key of the bucket
+         * @return Returns the first minute since the epoch covered by the bucket
+         */
+        public long startOf(long bucket) {
+            return switch (this) {
+                case DAY -> bucket * MINUTES_PER_DAY;
+                case MONTH -> LocalDate.of(
+                        (int) Math.floorDiv(bucket, 12),
+                        Math.floorMod(bucket, 12) + 1,
+                        1
+                ).toEpochDay() * MINUTES_PER_DAY;
+            };
+        }
+    }
+
+    private final Granularity granularity;
+    private long[] keys;
+    private double[] sums;
+    private double[] mins;
+    private double[] maxs;
+    private int[] counts;
+    private int size;
+
+    // Buckets read in place by a snapshot, copied before one of them changes
+    private int sharedCount;
+
+    // Values of the last bucket when the buckets are a snapshot, null otherwise
+    private Aggregate lastBucket;
+
+    // Bounds of the last bucket resolved by add, months need a calendar to be resolved
+    private long lastKey;
+    private long lastStart = Long.MAX_VALUE;
+    private long lastEnd = Long.MIN_VALUE;
+
+    /**
+     * Constructor for {@link TimeBuckets}
+     *
+     * @param granularity The {@link Granularity granularity} of the buckets
+     */
+    public TimeBuckets(Granularity granularity) {
+        this.granularity = granularity;
+        keys = new long[4];
+        sums = new double[4];
+        mins = new double[4];
+        maxs = new double[4];
+        counts = new int[4];
+    }
+
+    /**
+     * Constructor for a {@link #snapshot()} of {@link TimeBuckets}
+     *
+     * @param buckets The buckets to share the arrays of
+     */
+    private TimeBuckets(TimeBuckets buckets) {
+        granularity = buckets.granularity;
+        keys = buckets.keys;
+        sums = buckets.sums;
+        mins = buckets.mins;
+        maxs = buckets.maxs;
+        counts = buckets.counts;
+        size = buckets.size;
+
+        if (size > 0) {
+            lastBucket = new Aggregate();
+            lastBucket.merge(sums[size - 1], mins[size - 1], maxs[size - 1], counts[size - 1]);
+        }
+    }
+
+    /**
+     * Copy the bucket arrays
+     *
+     * @param capacity The length of the copies, at least {@link #size}
+     */
+    private void copyArrays(int capacity) {
+        long[] keysCopy = new long[capacity];
+        double[] sumsCopy = new double[capacity];
+        double[] minsCopy = new double[capacity];
+        double[] maxsCopy = new double[capacity];
+        int[] countsCopy = new int[capacity];
+        System.arraycopy(keys, 0, keysCopy, 0, size);
+        System.arraycopy(sums, 0, sumsCopy, 0, size);
+        System.arraycopy(mins, 0, minsCopy, 0, size);
+        System.arraycopy(maxs, 0, maxsCopy, 0, size);
+        System.arraycopy(counts, 0, countsCopy, 0, size);
+        keys = keysCopy;
+        sums = sumsCopy;
+        mins = minsCopy;
+        maxs = maxsCopy;
+        counts = countsCopy;
+        sharedCount = 0;
+    }
+
+    /**
+     * Find the position of the first bucket with a key greater or equal to a given key
+     *
+     * @param key The key of the bucket
+     * @return Returns the position of the bucket or {@link #size} if there is none
+     */
+    private int lowerBound(long key) {
+        if (size > 0 && keys[size - 1] < key) return size;
+
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    /**
+     * Insert an empty bucket
+     *
+     * @param position The position of the new bucket
+     * @param key      The key of the new bucket
+     */
+    private void insertBucket(int position, long key) {
+        if (size == keys.length) {
+            copyArrays(keys.length * 2);
+        }
+
+        int moved = size - position;
+        System.arraycopy(keys, position, keys, position + 1, moved);
+        System.arraycopy(sums, position, sums, position + 1, moved);
+        System.arraycopy(mins, position, mins, position + 1, moved);
+        System.arraycopy(maxs, position, maxs, position + 1, moved);
+        System.arraycopy(counts, position, counts, position + 1, moved);
+
+        keys[position] = key;
+        sums[position] = 0;
+        mins[position] = Double.POSITIVE_INFINITY;
+        maxs[position] = Double.NEGATIVE_INFINITY;
+        counts[position] = 0;
+        size++;
+    }
+
+    /**
+     * Get the {@link Granularity} of the buckets
+     *
+     * @return Returns the {@link Granularity}
+     */
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Add a reading to its bucket
+     *
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
+     */
+    public void add(long epochMinute, double value) {
+        if (epochMinute < lastStart || epochMinute >= lastEnd) {
+            lastKey = granularity.bucketOf(epochMinute);
+            lastStart = granularity.startOf(lastKey);
+            lastEnd = granularity.startOf(lastKey + 1);
+        }
+
+        int position = lowerBound(lastKey);
+        boolean inserted = position == size || keys[position] != lastKey;
+
+        // A snapshot keeps its own values of its last bucket, but reads its key and the older buckets in place
+        if (inserted ? position < sharedCount : position < sharedCount - 1) {
+            copyArrays(keys.length);
+        }
+        if (inserted) {
+            insertBucket(position, lastKey);
+        }
+
+        sums[position] += value;
+        if (value < mins[position]) mins[position] = value;
+        if (value > maxs[position]) maxs[position] = value;
+        counts[position]++;
+    }
+
+    /**
+     * Get a read-only view of the buckets as they are now
+     *
+     * @return Returns {@link TimeBuckets} that the readings added from now on don't change
+     * @implNote Don't add readings to the returned buckets
+     */
+    public TimeBuckets snapshot() {
+        sharedCount = size;
+        return new TimeBuckets(this);
+    }
+
+    /**
+     * Merge every bucket with a key inside a range into an {@link Aggregate}
+     *
+     * @param fromBucket The inclusive first key
+     * @param toBucket   The exclusive last key
+     * @param aggregate  The {@link Aggregate aggregate} to merge into
+     */
+    public void aggregate(long fromBucket, long toBucket, Aggregate aggregate) {
+        for (int i = lowerBound(fromBucket); i < size && keys[i] < toBucket; i++) {
+            if (lastBucket != null && i == size - 1) {
+                aggregate.merge(lastBucket);
+            } else {
+                aggregate.merge(sums[i], mins[i], maxs[i], counts[i]);
+            }
+        }
+    }
+}
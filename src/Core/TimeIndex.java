@@ -0,0 +1,228 @@
+package Core;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Time ordered view over the readings of a {@link MeasurementStore}
+ *
+ * @implNote While readings arrive in time order the store itself is the ordered view and no index is kept.
+ * After the first out of order reading a permutation of the store positions sorted by time is kept,
+ * new readings are sorted and merged into it lazily, on the next query.
+ * Merging allocates a new permutation, a permutation is never written once it's in use,
+ * so a {@link #snapshot(MeasurementStore)} shares it and merges its pending readings into its own copy.
+ * Not thread safe, {@link ConcurrentCity} gives each reader its own snapshot.
+ */
+public class TimeIndex {
+    // Readings left out of order before contains merges them
+    private static final int MAX_PENDING = 1024;
+
+    private final MeasurementStore store;
+    private int[] order;
+    private int sortedCount;
+    private long newest = Long.MIN_VALUE;
+
+    /**
+     * Constructor for {@link TimeIndex}
+     *
+     * @param store The {@link MeasurementStore store} to index
+     */
+    public TimeIndex(MeasurementStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Constructor for a {@link #snapshot(MeasurementStore)} of a {@link TimeIndex}
+     *
+     * @param store The snapshot of the store
+     * @param index The index to share the permutation of
+     */
+    private TimeIndex(MeasurementStore store, TimeIndex index) {
+        this.store = store;
+        order = index.order;
+        sortedCount = index.sortedCount;
+        newest = index.newest;
+    }
+
+    /**
+     * Register a reading already appended to the store
+     *
+     * @param position The position of the reading in the store
+     */
+    public void add(int position) {
+        newest = Math.max(newest, store.getTime(position));
+        if (order != null || position == 0) return;
+
+        if (store.getTime(position) < store.getTime(position - 1)) {
+            // The readings before this one are still in order, so they are the sorted prefix
+            order = new int[position];
+            for (int i = 0; i < position; i++) {
+                order[i] = i;
+            }
+            sortedCount = position;
+        }
+    }
+
+    /**
+     * Sort the readings appended since the last query and merge them into {@link #order}
+     */
+    private void update() {
+        int size = store.size();
+        if (order == null || sortedCount == size) return;
+
+        int[] tail = new int[size - sortedCount];
+        for (int i = 0; i < tail.length; i++) {
+            tail[i] = sortedCount + i;
+        }
+        sort(tail);
+
+        int[] merged = new int[size];
+        int i = 0, j = 0, k = 0;
+        while (i < sortedCount && j < tail.length) {
+            merged[k++] = store.getTime(tail[j]) < store.getTime(order[i]) ? tail[j++] : order[i++];
+        }
+        while (i < sortedCount) merged[k++] = order[i++];
+        while (j < tail.length) merged[k++] = tail[j++];
+
+        order = merged;
+        sortedCount = size;
+    }
+
+    /**
+     * Stable bottom-up merge sort of store positions by time
+     *
+     * @param positions The positions to sort
+     */
+    private void sort(int[] positions) {
+        int[] buffer = new int[positions.length];
+
+        for (int width = 1; width < positions.length; width *= 2) {
+            for (int lo = 0; lo < positions.length - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, positions.length);
+
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    buffer[k++] = store.getTime(positions[j]) < store.getTime(positions[i]) ? positions[j++] : positions[i++];
+                }
+                while (i < mid) buffer[k++] = positions[i++];
+                while (j < hi) buffer[k++] = positions[j++];
+
+                System.arraycopy(buffer, lo, positions, lo, hi - lo);
+            }
+        }
+    }
+
+    /**
+     * Get a read-only view of the index as it is now
+     *
+     * @param store The {@link MeasurementStore#snapshot() snapshot} of the indexed store, taken at the same time
+     * @return Returns a {@link TimeIndex} over the snapshot
+     * @implNote Takes constant time, the snapshot merges the pending readings itself when it's first queried
+     */
+    public TimeIndex snapshot(MeasurementStore store) {
+        return new TimeIndex(store, this);
+    }
+
+    /**
+     * Checks if the readings were added in time order, so ranks and store positions are the same
+     *
+     * @return true if the rank of every reading is its position in the store
+     */
+    public boolean isStoreOrder() {
+        return order == null;
+    }
+
+    /**
+     * Get the store position of the reading with a given rank in time order
+     *
+     * @param rank The rank of the reading, 0 is the oldest
+     * @return Returns the position of the reading in the store
+     * @implNote Call {@link #lowerBound(long)} first so pending readings are merged
+     */
+    public int position(int rank) {
+        return order == null ? rank : order[rank];
+    }
+
+    /**
+     * Get the time of the reading with a given rank in time order
+     *
+     * @param rank The rank of the reading, 0 is the oldest
+     * @return Returns the time in minutes since the epoch
+     */
+    public long getTime(int rank) {
+        update();
+        return store.getTime(position(rank));
+    }
+
+    /**
+     * Find the rank of the first reading not older than a given time
+     *
+     * @param epochMinute The time in minutes since the epoch
+     * @return Returns the rank of the first reading with time greater or equal to {@link Long epochMinute}
+     */
+    public int lowerBound(long epochMinute) {
+        update();
+        return lowerBound(epochMinute, store.size());
+    }
+
+    /**
+     * Find the rank of the first reading not older than a given time among the sorted ones
+     *
+     * @param epochMinute The time in minutes since the epoch
+     * @param sorted      The number of sorted readings
+     * @return Returns the rank of the first reading with time greater or equal to {@link Long epochMinute}
+     */
+    private int lowerBound(long epochMinute, int sorted) {
+        int lo = 0, hi = sorted;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (store.getTime(position(mid)) < epochMinute) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    /**
+     * Checks if a reading is stored, without a hash index of every reading
+     *
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
+     * @return true if a reading is found or false if nothing is found
+     * @implNote Readings newer than every stored one are never duplicates, so appending in time order
+     * costs no lookup. Otherwise the sorted readings are binary searched and the pending ones are scanned,
+     * they are merged once more than {@link #MAX_PENDING} wait.
+     */
+    public boolean contains(long epochMinute, double value) {
+        int size = store.size();
+        if (size == 0 || epochMinute > newest) return false;
+
+        if (order != null && size - sortedCount > MAX_PENDING) {
+            update();
+        }
+
+        int sorted = order == null ? size : sortedCount;
+        for (int rank = lowerBound(epochMinute, sorted); rank < sorted; rank++) {
+            int position = position(rank);
+            if (store.getTime(position) != epochMinute) break;
+            if (store.getValue(position) == value) return true;
+        }
+
+        for (int position = sorted; position < size; position++) {
+            if (store.getTime(position) == epochMinute && store.getValue(position) == value) return true;
+        }
+
+        return false;
+    }
+}
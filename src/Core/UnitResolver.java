@@ -0,0 +1,132 @@
+package Core;
+
+import edu.ma02.core.enumerations.Unit;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Resolves the unit strings of a feed to a {@link Unit}, accepting the spellings the feeds use
+ *
+ * @implNote A feed has only a handful of distinct unit strings, so every string resolved is remembered
+ * in a small table, unresolvable ones included, up to {@link #CAPACITY} strings.
+ * The table is copied on write and published through a volatile field:
+ * lookups take no lock and only the first occurrence of a string does the string work.
+ */
+public final class UnitResolver {
+    /**
+     * Maximum number of remembered strings, strings beyond it are resolved every time
+     */
+    public static final int CAPACITY = 64;
+
+    /**
+     * A remembered string and its unit, null if it can't be resolved
+     */
+    private static class Entry {
+        private final String raw;
+        private final Unit unit;
+
+        /**
+         * Constructor for {@link Entry}
+         *
+         * @param raw  The unit as written in the feed
+         * @param unit The resolved {@link Unit} or null
+         */
+        private Entry(String raw, Unit unit) {
+            this.raw = raw;
+            this.unit = unit;
+        }
+    }
+
+    private static volatile Entry[] entries = new Entry[0];
+
+    private UnitResolver() {
+    }
+
+    /**
+     * Resolve a unit string
+     *
+     * @param unit The unit as written in the feed
+     * @return Returns the {@link Unit} or null if the string is null or isn't a known unit
+     */
+    public static Unit resolve(String unit) {
+        if (unit == null) {
+            return null;
+        }
+
+        Entry[] current = entries;
+        for (Entry entry : current) {
+            if (entry.raw == unit || entry.raw.equals(unit)) {
+                return entry.unit;
+            }
+        }
+
+        Unit resolved = parse(unit);
+        remember(unit, resolved);
+        return resolved;
+    }
+
+    /**
+     * Resolve a unit string without the table
+     *
+     * @param unit The unit as written in the feed
+     * @return Returns the {@link Unit} or null if the string isn't a known unit
+     */
+    static Unit parse(String unit) {
+        unit = convertMicroLatinSignToGreekIfAny(unit);
+
+        // Accept edge case of Mbar
+        if (unit.equals("Mbar")) {
+            unit = unit.toLowerCase();
+        }
+
+        return Unit.getUnitFromString(unit);
+    }
+
+    /**
+     * Add a string to the table, unless another thread already did or the table is full
+     *
+     * @param unit     The unit as written in the feed
+     * @param resolved The resolved {@link Unit} or null
+     */
+    private static synchronized void remember(String unit, Unit resolved) {
+        Entry[] current = entries;
+        if (current.length == CAPACITY) {
+            return;
+        }
+        for (Entry entry : current) {
+            if (entry.raw.equals(unit)) {
+                return;
+            }
+        }
+
+        Entry[] copy = new Entry[current.length + 1];
+        System.arraycopy(current, 0, copy, 0, current.length);
+        copy[current.length] = new Entry(unit, resolved);
+        entries = copy;
+    }
+
+    /**
+     * Convert unicode char 'MICRO SIGN' (U+00B5) to greek approximation (U+03BC)
+     *
+     * @param unit The unit where the special character is
+     * @return The new string if there are a match, otherwise return without changes
+     */
+    private static String convertMicroLatinSignToGreekIfAny(String unit) {
+        String latinMicroSign = "\u00B5";
+        String greekMicroSign = "\u03BC";
+
+        if (unit.startsWith(latinMicroSign)) {
+            return unit.replace(latinMicroSign, greekMicroSign);
+        }
+
+        return unit;
+    }
+}
@@ -0,0 +1,550 @@
+package Core;
+
+import Core.Coordinates.CartesianCoordinates;
+import Core.Coordinates.GeographicCoordinates;
+import edu.ma02.core.exceptions.CityException;
+import edu.ma02.core.exceptions.SensorException;
+import edu.ma02.core.exceptions.StationException;
+import edu.ma02.core.interfaces.ICartesianCoordinates;
+import edu.ma02.core.interfaces.IGeographicCoordinates;
+import edu.ma02.core.interfaces.ISensor;
+import edu.ma02.core.interfaces.IStation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Append-only log of the stations, sensors and readings added to a {@link City}, replayed after a crash
+ *
+ * @implNote Every record is framed by its length and a CRC-32C checksum, so a record torn by a crash is found
+ * and cut away when the log is opened. Records are batched in a buffer and written on {@link #commit()},
+ * threads that commit while another one waits for the disk are covered by that same sync (group commit).
+ * Replaying is idempotent, stations, sensors and readings already in the city are skipped,
+ * so a crash in the middle of a {@link #checkpoint(City, String)} loses nothing.
+ * The city appends a record before it applies the change, a change the log refuses is never made.
+ * @apiNote Writers of the city must be stopped while {@link #checkpoint(City, String)} runs,
+ * the log is emptied after the snapshot is saved and a reading added in between would be in neither.
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    /**
+     * When the log reaches the disk
+     */
+    public enum Durability {
+        /**
+         * Never synced. Records stay in a buffer of the program, up to 1 MiB, until {@link #commit()}
+         * or until the buffer is full: a crash of the program loses the buffered records,
+         * the ones already written to the operating system are lost only if the machine crashes
+         */
+        NONE,
+        /**
+         * Written and synced on {@link #commit()} and every {@link #setBatchSize(int) batch size} records
+         */
+        BATCH,
+        /**
+         * Written and synced before every write of the city returns, concurrent writers share the syncs
+         */
+        EVERY_WRITE
+    }
+
+    private static final byte STATION = 1;
+    private static final byte SENSOR = 2;
+    private static final byte MEASUREMENT = 3;
+    private static final byte MEASUREMENTS = 4;
+
+    private static final byte HAS_CARTESIAN = 1;
+    private static final byte HAS_GEOGRAPHIC = 2;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_RECORD_SIZE = 1 << 16;
+    // Readings of a MEASUREMENTS record, so the record stays below MAX_RECORD_SIZE with any names
+    private static final int MAX_GROUP_READINGS = 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Durability durability;
+    private final ByteBuffer buffer;
+    private final CRC32C crc;
+    private final Object syncLock;
+    private int batchSize = 4096;
+
+    // Records appended and records known to be on the disk, guarded by this
+    private long appended = 0;
+    private volatile long synced = 0;
+    private long syncs = 0;
+
+    /**
+     * Constructor for {@link WriteAheadLog}, opens or creates the log and cuts away a torn last record
+     *
+     * @param path       The {@link String path} of the log
+     * @param durability The {@link Durability durability} of the appended records
+     */
+    public WriteAheadLog(String path, Durability durability) throws IOException {
+        this.path = Path.of(path);
+        this.durability = durability;
+        channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        crc = new CRC32C();
+        syncLock = new Object();
+
+        long end = scan(null);
+        if (end < channel.size()) {
+            channel.truncate(end);
+            channel.force(true);
+        }
+        channel.position(end);
+    }
+
+    /**
+     * Set the number of pending records that makes {@link Durability#BATCH} commit on its own
+     *
+     * @param batchSize The number of records
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the number of syncs made, several commits can share one
+     *
+     * @return Returns the number of syncs
+     */
+    public synchronized long getSyncCount() {
+        return syncs;
+    }
+
+    /**
+     * Read every valid record of the log
+     *
+     * @param city The {@link City city} where the records are replayed or null to only validate them
+     * @return Returns the position after the last valid record
+     */
+    private long scan(City city) throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        CRC32C checksum = new CRC32C();
+        long position = 0;
+        long size = channel.size();
+        input.flip();
+
+        while (true) {
+            if (input.remaining() < HEADER_SIZE && !fill(input, position + input.remaining(), HEADER_SIZE)) break;
+
+            int length = input.getInt(input.position());
+            int expected = input.getInt(input.position() + 4);
+            if (length <= 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > size) break;
+            if (input.remaining() < HEADER_SIZE + length && !fill(input, position + input.remaining(), HEADER_SIZE + length)) break;
+
+            checksum.reset();
+            checksum.update(input.array(), input.position() + HEADER_SIZE, length);
+            if ((int) checksum.getValue() != expected) break;
+
+            input.position(input.position() + HEADER_SIZE);
+            ByteBuffer record = input.slice();
+            record.limit(length);
+            if (city != null) {
+                apply(city, record);
+            }
+            input.position(input.position() + length);
+            position += HEADER_SIZE + length;
+        }
+
+        return position;
+    }
+
+    /**
+     * Read more of the log into a buffer
+     *
+     * @param input    The {@link ByteBuffer buffer} ready to be read
+     * @param from     The position of the file after the buffered bytes
+     * @param required The number of bytes the buffer must hold
+     * @return Returns false if the log ends before
+     */
+    private boolean fill(ByteBuffer input, long from, int required) throws IOException {
+        input.compact();
+        while (input.position() < required) {
+            int read = channel.read(input, from);
+            if (read < 0) {
+                input.flip();
+                return false;
+            }
+            from += read;
+        }
+        input.flip();
+        return true;
+    }
+
+    /**
+     * Replay a record into a {@link City}
+     *
+     * @param city   The {@link City city}
+     * @param record The {@link ByteBuffer record} without its header
+     */
+    private static void apply(City city, ByteBuffer record) throws IOException {
+        try {
+            byte type = record.get();
+            String stationName = getString(record);
+            switch (type) {
+                case STATION -> city.addStation(stationName);
+                case SENSOR -> {
+                    String sensorId = getString(record);
+                    byte flags = record.get();
+                    ICartesianCoordinates cartesian = (flags & HAS_CARTESIAN) == 0 ? null
+                            : new CartesianCoordinates(record.getDouble(), record.getDouble(), record.getDouble());
+                    IGeographicCoordinates geographic = (flags & HAS_GEOGRAPHIC) == 0 ? null
+                            : new GeographicCoordinates(record.getDouble(), record.getDouble());
+                    IStation station = city.getStation(stationName);
+                    if (station == null || station.getSensor(sensorId) == null) {
+                        city.addSensor(stationName, sensorId, cartesian, geographic);
+                    }
+                }
+                case MEASUREMENT, MEASUREMENTS -> {
+                    String sensorId = getString(record);
+                    IStation station = city.getStation(stationName);
+                    ISensor sensor = station == null ? null : station.getSensor(sensorId);
+                    if (!(sensor instanceof Sensor s)) {
+                        throw new IOException("Invalid Write-Ahead Log: reading of an unknown sensor " + sensorId);
+                    }
+
+                    int readings = type == MEASUREMENT ? 1 : record.getInt();
+                    boolean changed = false;
+                    for (int i = 0; i < readings; i++) {
+                        changed |= s.addElement(record.getLong(), record.getDouble());
+                    }
+                    if (changed) {
+                        city.readingsChanged((Station) station, s);
+                    }
+                }
+                default -> throw new IOException("Invalid Write-Ahead Log: unknown record type " + type);
+            }
+        } catch (CityException | StationException | SensorException e) {
+            throw new IOException("Invalid Write-Ahead Log: " + e.getMessage(), e);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort() & 0xFFFF];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replay every record of the log into a {@link City}
+     *
+     * @param city The {@link City city}, empty or loaded from the snapshot of the last checkpoint
+     * @apiNote Replay before {@link City#setWriteAheadLog(WriteAheadLog)}, or the records would be logged again
+     */
+    public void replay(City city) throws IOException {
+        synchronized (this) {
+            flush();
+        }
+        scan(city);
+    }
+
+    /**
+     * Write the buffered records to the channel
+     *
+     * @implNote Called with the lock of this log held
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Fields of a record written after the station name and sensor id
+     */
+    private interface Fields {
+        void write(ByteBuffer out);
+    }
+
+    /**
+     * Append a record and commit it as the {@link Durability} asks
+     *
+     * @param type        The type of the record
+     * @param stationName The UTF-8 name of the station
+     * @param sensorId    The UTF-8 id of the sensor or null for a station
+     * @param maxFields   The maximum size of the remaining fields
+     * @param fields      The {@link Fields fields} that follow the sensor id
+     */
+    private void append(byte type, byte[] stationName, byte[] sensorId, int maxFields, Fields fields) throws IOException {
+        long pending = appendRecord(type, stationName, sensorId, maxFields, fields);
+
+        if (durability == Durability.EVERY_WRITE || (durability == Durability.BATCH && pending >= batchSize)) {
+            commit();
+        }
+    }
+
+    /**
+     * Append a record without committing it
+     *
+     * @param type        The type of the record
+     * @param stationName The UTF-8 name of the station
+     * @param sensorId    The UTF-8 id of the sensor or null for a station
+     * @param maxFields   The maximum size of the remaining fields
+     * @param fields      The {@link Fields fields} that follow the sensor id
+     * @return Returns the number of records not synced yet
+     */
+    private long appendRecord(byte type, byte[] stationName, byte[] sensorId, int maxFields, Fields fields)
+            throws IOException {
+        int maxLength = 1 + 2 + stationName.length + (sensorId == null ? 0 : 2 + sensorId.length) + maxFields;
+        if (maxLength > MAX_RECORD_SIZE) {
+            throw new IOException("Write-Ahead Log record too large");
+        }
+
+        long pending;
+        synchronized (this) {
+            if (buffer.remaining() < HEADER_SIZE + maxLength) {
+                flush();
+            }
+
+            int start = buffer.position();
+            buffer.position(start + HEADER_SIZE);
+            buffer.put(type);
+            buffer.putShort((short) stationName.length).put(stationName);
+            if (sensorId != null) {
+                buffer.putShort((short) sensorId.length).put(sensorId);
+            }
+            fields.write(buffer);
+            int end = buffer.position();
+
+            crc.reset();
+            crc.update(buffer.duplicate().position(start + HEADER_SIZE).limit(end));
+            buffer.putInt(start, end - start - HEADER_SIZE);
+            buffer.putInt(start + 4, (int) crc.getValue());
+
+            pending = ++appended - synced;
+        }
+        return pending;
+    }
+
+    /**
+     * Log an added station
+     *
+     * @param stationName The name of the station
+     */
+    void stationAdded(String stationName) throws IOException {
+        append(STATION, stationName.getBytes(StandardCharsets.UTF_8), null, 0, out -> {
+        });
+    }
+
+    /**
+     * Log an added sensor
+     *
+     * @param stationName           The name of the station
+     * @param sensorId              The id of the sensor
+     * @param cartesianCoordinates  The {@link ICartesianCoordinates} or null
+     * @param geographicCoordinates The {@link IGeographicCoordinates} or null
+     */
+    void sensorAdded(String stationName, String sensorId,
+                     ICartesianCoordinates cartesianCoordinates,
+                     IGeographicCoordinates geographicCoordinates) throws IOException {
+        append(SENSOR, stationName.getBytes(StandardCharsets.UTF_8), sensorId.getBytes(StandardCharsets.UTF_8), 1 + 5 * 8,
+                out -> {
+                    out.put((byte) ((cartesianCoordinates != null ? HAS_CARTESIAN : 0)
+                            | (geographicCoordinates != null ? HAS_GEOGRAPHIC : 0)));
+                    if (cartesianCoordinates != null) {
+                        out.putDouble(cartesianCoordinates.getX());
+                        out.putDouble(cartesianCoordinates.getY());
+                        out.putDouble(cartesianCoordinates.getZ());
+                    }
+                    if (geographicCoordinates != null) {
+                        out.putDouble(geographicCoordinates.getLatitude());
+                        out.putDouble(geographicCoordinates.getLongitude());
+                    }
+                });
+    }
+
+    /**
+     * Log an added reading
+     *
+     * @param stationName The name of the station
+     * @param sensorId    The id of the sensor
+     * @param epochMinute The time of the reading in minutes since the epoch
+     * @param value       The read value
+     */
+    void measurementAdded(String stationName, String sensorId, long epochMinute, double value) throws IOException {
+        append(MEASUREMENT, stationName.getBytes(StandardCharsets.UTF_8), sensorId.getBytes(StandardCharsets.UTF_8), 2 * 8,
+                out -> out.putLong(epochMinute).putDouble(value));
+    }
+
+    /**
+     * Log the added readings of a group of rows of a {@link MeasurementBatch}
+     *
+     * @param batch  The {@link MeasurementBatch batch}
+     * @param from   The first row of the group, every row has the same station and sensor
+     * @param to     The row after the last one
+     * @param status The {@link MeasurementBatch.Status status} of the rows, only the added ones are logged
+     * @apiNote With {@link Durability#EVERY_WRITE} the records are only synced by {@link #batchEnded()},
+     * so the whole batch shares one sync
+     * @implNote The group is a single record, or one per {@link #MAX_GROUP_READINGS} readings,
+     * with the names written once and then the time and value of each reading
+     */
+    void measurementsAdded(MeasurementBatch batch, int from, int to, MeasurementBatch.Status[] status)
+            throws IOException {
+        byte[] stationName = batch.getStationName(from).getBytes(StandardCharsets.UTF_8);
+        byte[] sensorId = batch.getSensorId(from).getBytes(StandardCharsets.UTF_8);
+
+        long pending = 0;
+        int row = from;
+        while (row < to) {
+            // Rows of the next record, the added ones of the group up to the limit of a record
+            int first = row;
+            int readings = 0;
+            while (row < to && readings < MAX_GROUP_READINGS) {
+                if (status[row++] == MeasurementBatch.Status.ADDED) readings++;
+            }
+            if (readings == 0) break;
+
+            int count = readings;
+            int end = row;
+            pending = appendRecord(MEASUREMENTS, stationName, sensorId, 4 + count * 2 * 8, out -> {
+                out.putInt(count);
+                for (int i = first; i < end; i++) {
+                    if (status[i] == MeasurementBatch.Status.ADDED) {
+                        out.putLong(batch.getEpochMinute(i)).putDouble(batch.getValue(i));
+                    }
+                }
+            });
+        }
+
+        if (durability == Durability.BATCH && pending >= batchSize) {
+            commit();
+        }
+    }
+
+    /**
+     * End a {@link MeasurementBatch}, syncing its records with {@link Durability#EVERY_WRITE}
+     */
+    void batchEnded() throws IOException {
+        if (durability == Durability.EVERY_WRITE) {
+            commit();
+        }
+    }
+
+    /**
+     * Make every record appended so far durable, as far as the {@link Durability} goes
+     *
+     * @implNote Only one thread syncs at a time. A thread that gets the turn after its records
+     * were covered by the previous sync returns right away, so concurrent commits share syncs.
+     */
+    public void commit() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+
+        synchronized (syncLock) {
+            if (synced >= target) return;
+
+            long covered;
+            synchronized (this) {
+                flush();
+                covered = appended;
+            }
+
+            // Appends keep going while the disk syncs, they are covered by the next commit
+            if (durability != Durability.NONE) {
+                channel.force(false);
+            }
+
+            synchronized (this) {
+                synced = covered;
+                syncs++;
+            }
+        }
+    }
+
+    /**
+     * Save a snapshot of a {@link City} and empty the log
+     *
+     * @param city         The {@link City city} written through this log
+     * @param snapshotPath The {@link String path} of the snapshot, replaced atomically
+     * @apiNote Writers of the city must be stopped, readings added during the checkpoint may be lost.
+     * After a crash load the snapshot with {@link CitySnapshot#load(String)} and {@link #replay(City)} the log.
+     * The log is only emptied once the renamed snapshot is synced, its directory included.
+     */
+    public void checkpoint(City city, String snapshotPath) throws IOException {
+        commit();
+
+        Path snapshot = Path.of(snapshotPath);
+        Path temporary = Path.of(snapshotPath + ".tmp");
+        CitySnapshot.save(city, temporary.toString());
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(snapshot.toAbsolutePath().getParent());
+
+        synchronized (syncLock) {
+            synchronized (this) {
+                flush();
+                channel.truncate(0);
+                channel.force(true);
+                synced = appended;
+            }
+        }
+    }
+
+    /**
+     * Sync a directory, so the files renamed into it survive a crash of the machine
+     *
+     * @param directory The {@link Path directory}
+     * @implNote Windows can't open a directory as a channel, there the rename is already journaled by the file system
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel directoryChannel;
+        try {
+            directoryChannel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            if (System.getProperty("os.name").startsWith("Windows")) return;
+            throw e;
+        }
+
+        try (directoryChannel) {
+            directoryChannel.force(true);
+        }
+    }
+
+    /**
+     * Commit and close the log
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "WriteAheadLog{" +
+                "path=" + path +
+                ", durability=" + durability +
+                ", appended=" + appended +
+                ", synced=" + synced +
+                '}';
+    }
+}
@@ -1,21 +1,30 @@
 package SensorDataInput;
 
+import Core.City;
+import Core.Measurement;
+import Core.UnitResolver;
 import edu.ma02.core.exceptions.CityException;
 import edu.ma02.core.exceptions.MeasurementException;
 import edu.ma02.core.exceptions.SensorException;
 import edu.ma02.core.exceptions.StationException;
 import edu.ma02.core.interfaces.ICity;
+import edu.ma02.core.interfaces.IStation;
 import edu.ma02.io.interfaces.IImporter;
 import edu.ma02.io.interfaces.IOStatistics;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /*
  * Nome: Micael André Cunha Dias
@@ -28,47 +37,218 @@ import java.time.format.DateTimeParseException;
  */
 public class JsonImporter implements IImporter {
 
+    private final boolean streaming;
+    private final TimestampDecoder timestampDecoder = new TimestampDecoder();
     private int nImportsMade = 0;
 
     /**
      * Empty constructor for {@link JsonImporter}
      */
     public JsonImporter() {
+        this(false);
     }
 
     /**
-     * {@inheritDoc}
+     * Constructor for {@link JsonImporter}
+     *
+     * @param streaming Set to true to read the file record by record instead of parsing the whole document first
+     * @apiNote The streaming mode keeps only the record being imported in memory, whatever the size of the file
      */
-    @Override
-    public IOStatistics importData(ICity city, String path) throws IOException, CityException {
-        if (city == null) throw new CityException("City can't be NULL");
+    public JsonImporter(boolean streaming) {
+        this.streaming = streaming;
+    }
 
-        ImportationReport report = new ImportationReport();
+    /**
+     * Collects each record of the top level array and imports it as soon as it's complete
+     */
+    private class RecordHandler implements ContentHandler {
+        private final ICity city;
+        private final ImportationReport report;
 
-        // Windows encoding is windows-1252 and Java default encoding is not UTF-8
-        FileInputStream fileOutputStream = new FileInputStream(path);
-        InputStreamReader inputStreamReader = new InputStreamReader(fileOutputStream, StandardCharsets.UTF_8);
+        // Containers still open inside the current record and the pending key of each object
+        private Object[] containers = new Object[8];
+        private String[] keys = new String[8];
+        private int depth = 0;
 
-        JSONArray jsonArray = (JSONArray) JSONValue.parse(inputStreamReader);
-        for (Object o : jsonArray) {
-            JSONObject jsonObject = (JSONObject) o;
-
-            try {
-                boolean jsonOk = jsonObject.containsKey("address") &&
-                        jsonObject.containsKey("coordinates") &&
-                        jsonObject.containsKey("id") &&
-                        jsonObject.containsKey("date") &&
-                        jsonObject.containsKey("value") &&
-                        jsonObject.containsKey("unit");
-
-                if (!jsonOk) {
-                    throw new IOException("Invalid JsonObject");
-                }
+        /**
+         * Constructor for {@link RecordHandler}
+         *
+         * @param city   The {@link ICity city} where the records are imported
+         * @param report The {@link ImportationReport report} of the importation
+         */
+        private RecordHandler(ICity city, ImportationReport report) {
+            this.city = city;
+            this.report = report;
+        }
 
-                if (city.addStation(jsonObject.get("address").toString())) {
-                    report.increaseReadStation(nImportsMade > 0);
+        /**
+         * Reject a document that isn't an array of records, as {@link #parseDocument(String)} does
+         *
+         * @throws IOException If the value about to start is the top level value
+         */
+        private void requireTopLevelArray() throws IOException {
+            if (depth == 0) {
+                throw new IOException("Invalid Json, expected an array of records");
+            }
+        }
+
+        /**
+         * Open a container, the top level array is never filled
+         *
+         * @param container The {@link JSONObject} or {@link JSONArray} to open
+         */
+        private void open(Object container) {
+            if (depth == containers.length) {
+                Object[] containersCopy = new Object[containers.length * 2];
+                String[] keysCopy = new String[keys.length * 2];
+                System.arraycopy(containers, 0, containersCopy, 0, depth);
+                System.arraycopy(keys, 0, keysCopy, 0, depth);
+                containers = containersCopy;
+                keys = keysCopy;
+            }
+
+            containers[depth++] = container;
+        }
+
+        /**
+         * Close the innermost container and hand it to its parent
+         */
+        private void close() {
+            Object container = containers[--depth];
+            containers[depth] = null;
+
+            if (depth == 1) {
+                if (container instanceof JSONObject jsonObject) {
+                    importRecord(city, jsonObject, report);
                 }
+            } else if (depth > 1) {
+                append(container);
+            }
+        }
 
+        /**
+         * Append a value to the innermost container of the current record
+         *
+         * @param value The value to append
+         */
+        @SuppressWarnings("unchecked")
+        private void append(Object value) {
+            if (depth < 2) return;
+
+            Object parent = containers[depth - 1];
+            if (parent instanceof JSONObject jsonObject) {
+                jsonObject.put(keys[depth - 1], value);
+            } else if (parent instanceof JSONArray jsonArray) {
+                jsonArray.add(value);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void startJSON() {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void endJSON() {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean startObject() throws IOException {
+            requireTopLevelArray();
+            open(new JSONObject());
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean endObject() {
+            close();
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean startObjectEntry(String key) {
+            keys[depth - 1] = key;
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean endObjectEntry() {
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean startArray() {
+            open(new JSONArray());
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean endArray() {
+            close();
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean primitive(Object value) throws IOException {
+            requireTopLevelArray();
+            append(value);
+            return true;
+        }
+    }
+
+    /**
+     * Import a single record into a {@link ICity city}
+     *
+     * @param city       The {@link ICity city} where the record is imported
+     * @param jsonObject The {@link JSONObject record}
+     * @param report     The {@link ImportationReport report} where the results are counted
+     */
+    private void importRecord(ICity city, JSONObject jsonObject, ImportationReport report) {
+        try {
+            boolean jsonOk = jsonObject.containsKey("address") &&
+                    jsonObject.containsKey("coordinates") &&
+                    jsonObject.containsKey("id") &&
+                    jsonObject.containsKey("date") &&
+                    jsonObject.containsKey("value") &&
+                    jsonObject.containsKey("unit");
+
+            if (!jsonOk) {
+                throw new IOException("Invalid JsonObject");
+            }
+
+            if (city.addStation(jsonObject.get("address").toString())) {
+                report.increaseReadStation(nImportsMade > 0);
+            }
+
+            // Every reading of a sensor carries its id and coordinates, the city refuses a sensor it already has
+            IStation station = city.getStation(jsonObject.get("address").toString());
+            if (station != null && station.getSensor(jsonObject.get("id").toString()) == null) {
                 CoordinatesObject coordinatesObject = new CoordinatesObject((JSONObject) jsonObject.get("coordinates"));
                 if (city.addSensor(
                         jsonObject.get("address").toString(),
@@ -78,31 +258,186 @@ public class JsonImporter implements IImporter {
                 )) {
                     report.increaseReadSensor(nImportsMade > 0);
                 }
+            }
 
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+            long epochMinute = timestampDecoder.decode(jsonObject.get("date").toString());
+            if (epochMinute == TimestampDecoder.INVALID) {
+                throw new IOException("Invalid Date Format");
+            }
 
-                LocalDateTime dateTime;
-                try {
-                     dateTime = LocalDateTime.parse(jsonObject.get("date").toString(), formatter);
-                } catch (DateTimeParseException e) {
-                    throw new IOException("Invalid Date Format");
-                }
+            String address = jsonObject.get("address").toString();
+            String id = jsonObject.get("id").toString();
+            double value = Double.parseDouble(jsonObject.get("value").toString());
+            String unit = jsonObject.get("unit").toString();
 
-                if (city.addMeasurement(
-                        jsonObject.get("address").toString(),
-                        jsonObject.get("id").toString(),
-                        Double.parseDouble(jsonObject.get("value").toString()),
-                        jsonObject.get("unit").toString(),
-                        dateTime
-                )) {
-                    report.increaseReadMeasurement(nImportsMade > 0);
-                }
-            } catch (CityException | SensorException | IOException | StationException | MeasurementException e) {
-                report.addException(e.getStackTrace(), e.getMessage());
+            // Our cities take the unit and time already resolved, a feed only repeats a handful of unit strings
+            boolean added = city instanceof City core
+                    ? core.addMeasurement(address, id, value, UnitResolver.resolve(unit), epochMinute)
+                    : city.addMeasurement(address, id, value, unit, Measurement.fromEpochMinute(epochMinute));
+            if (added) {
+                report.increaseReadMeasurement(nImportsMade > 0);
             }
+        } catch (CityException | SensorException | IOException | StationException | MeasurementException e) {
+            report.addException(e.getStackTrace(), e.getMessage());
+        }
+    }
+
+    /**
+     * Open a JSON file for reading
+     *
+     * @param path The {@link String path} of the file
+     * @return Returns a buffered {@link Reader} of the file
+     */
+    private Reader openReader(String path) throws IOException {
+        // Windows encoding is windows-1252 and Java default encoding is not UTF-8
+        return new BufferedReader(new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a whole JSON file
+     *
+     * @param path The {@link String path} of the file
+     * @return Returns the top level {@link JSONArray} of the file
+     * @throws IOException If the file can't be read or isn't an array of records
+     */
+    private JSONArray parseDocument(String path) throws IOException {
+        try (Reader reader = openReader(path)) {
+            Object document = new JSONParser().parse(reader);
+            if (!(document instanceof JSONArray jsonArray)) {
+                throw new IOException("Invalid Json, expected an array of records");
+            }
+
+            return jsonArray;
+        } catch (ParseException e) {
+            throw new IOException("Invalid Json at position " + e.getPosition());
+        }
+    }
+
+    /**
+     * Import every record of a parsed file into a {@link ICity city}
+     *
+     * @param city      The {@link ICity city} where the records are imported
+     * @param jsonArray The top level {@link JSONArray} of the file
+     * @param report    The {@link ImportationReport report} where the results are counted
+     */
+    private void importDocument(ICity city, JSONArray jsonArray, ImportationReport report) {
+        for (Object o : jsonArray) {
+            importRecord(city, (JSONObject) o, report);
         }
 
         nImportsMade++;
+    }
+
+    /**
+     * Wait for a file parsed by a worker
+     *
+     * @param parsed The {@link Future} of the parsed file
+     * @return Returns the top level {@link JSONArray} of the file
+     * @throws IOException If the worker failed to read the file or the wait was interrupted
+     */
+    private JSONArray awaitDocument(Future<JSONArray> parsed) throws IOException {
+        try {
+            return parsed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importation interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IOStatistics importData(ICity city, String path) throws IOException, CityException {
+        if (city == null) throw new CityException("City can't be NULL");
+
+        ImportationReport report = new ImportationReport();
+
+        if (streaming) {
+            try (Reader reader = openReader(path)) {
+                new JSONParser().parse(reader, new RecordHandler(city, report));
+            } catch (ParseException e) {
+                throw new IOException("Invalid Json at position " + e.getPosition());
+            }
+            nImportsMade++;
+        } else {
+            importDocument(city, parseDocument(path), report);
+        }
+
+        return report;
+    }
+
+    /**
+     * Import several files into a {@link ICity city}, parsing them on a pool of workers
+     *
+     * @param city    The {@link ICity city} where the records are imported
+     * @param paths   The {@link String paths} of the files, in importation order
+     * @param threads The number of worker threads
+     * @return Returns one {@link IOStatistics} with the results of every file
+     * @throws IOException   If a file can't be read, the files before it stay imported
+     * @throws CityException If the {@link ICity city} is NULL
+     * @implNote Files are parsed in parallel but their records are added to the city by the calling thread,
+     * in the order of {@link String paths}, so the city and report are the same as importing the files one by one.
+     * At most two files per worker are parsed ahead of the one being added.
+     * Only the parsing scales with the workers, adding the records stays sequential,
+     * see {@code Benchmarks.ParallelImportBenchmark} for the share of each.
+     */
+    public IOStatistics importData(ICity city, String[] paths, int threads) throws IOException, CityException {
+        if (city == null) throw new CityException("City can't be NULL");
+        if (threads < 1) throw new IllegalArgumentException("At least one worker thread is needed");
+
+        ImportationReport report = new ImportationReport();
+
+        // Only the files parsed ahead of the one being added, oldest first
+        ArrayDeque<Future<JSONArray>> parsed = new ArrayDeque<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+
+        try {
+            int submitted = 0;
+            for (int i = 0; i < paths.length; i++) {
+                while (submitted < paths.length && submitted < i + threads * 2) {
+                    String path = paths[submitted++];
+                    parsed.addLast(workers.submit(() -> parseDocument(path)));
+                }
+
+                importDocument(city, awaitDocument(parsed.removeFirst()), report);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
         return report;
     }
+
+    /**
+     * Import every JSON file of a directory into a {@link ICity city}, parsing them on a pool of workers
+     *
+     * @param city      The {@link ICity city} where the records are imported
+     * @param directory The {@link String path} of the directory
+     * @param threads   The number of worker threads
+     * @return Returns one {@link IOStatistics} with the results of every file
+     * @throws IOException   If the directory or a file can't be read
+     * @throws CityException If the {@link ICity city} is NULL
+     * @implNote Files are imported in name order, see {@link #importData(ICity, String[], int)}
+     */
+    public IOStatistics importDirectory(ICity city, String directory, int threads) throws IOException, CityException {
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            throw new IOException("Can't list the directory " + directory);
+        }
+
+        Arrays.sort(files);
+
+        String[] paths = new String[files.length];
+        for (int i = 0; i < files.length; i++) {
+            paths[i] = files[i].getPath();
+        }
+
+        return importData(city, paths, threads);
+    }
 }
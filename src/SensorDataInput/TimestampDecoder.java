@@ -0,0 +1,173 @@
+package SensorDataInput;
+
+/*
+ * Nome: Micael André Cunha Dias
+ * Número: 8200383
+ * Turma: LEI1T4
+ *
+ * Nome: Hugo Henrique Almeida Carvalho
+ * Número: 8200590
+ * Turma: LEI1T3
+ */
+
+/**
+ * Decodes the yyyyMMddHHmm dates of the feeds to minutes since the epoch
+ *
+ * @implNote Accepts exactly what {@code LocalDateTime.parse(text, DateTimeFormatter.ofPattern("yyyyMMddHHmm"))}
+ * accepts and gives the same time: twelve ASCII digits, years from 1, a day past the end of its month
+ * moved to the last day of the month and 24:00 as the start of the next day.
+ * Records arrive in bursts with the same date, so the last hour decoded is remembered
+ * and a date of the same hour only decodes its minutes. Nothing is allocated.
+ * An instance isn't thread safe, each importation thread needs its own.
+ */
+public class TimestampDecoder {
+    /**
+     * Result of a text that isn't a valid date
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int LENGTH = 12;
+    private static final int HOUR_LENGTH = 10;
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
+    private static final long DAYS_0000_TO_1970 = 719_528;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final char[] lastHour = new char[HOUR_LENGTH];
+    private boolean hasLastHour = false;
+    private long lastHourStart;
+    private int lastHourMaxMinute;
+
+    /**
+     * Decode a date
+     *
+     * @param text The date as written in the feed
+     * @return Returns the time in minutes since the epoch or {@link #INVALID}
+     */
+    public long decode(CharSequence text) {
+        if (text == null || text.length() != LENGTH) {
+            return INVALID;
+        }
+
+        if (!isLastHour(text)) {
+            if (!decodeHour(text)) {
+                return INVALID;
+            }
+        }
+
+        int minute = twoDigits(text, 10);
+        if (minute < 0 || minute > lastHourMaxMinute) {
+            return INVALID;
+        }
+        return lastHourStart + minute;
+    }
+
+    /**
+     * Check if a date has the same hour as the last one decoded
+     *
+     * @param text The date, twelve characters long
+     * @return Returns true if its first ten characters are the ones of the last hour
+     */
+    private boolean isLastHour(CharSequence text) {
+        if (!hasLastHour) {
+            return false;
+        }
+
+        for (int i = HOUR_LENGTH - 1; i >= 0; i--) {
+            if (text.charAt(i) != lastHour[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the hour of a date and remember it as the last hour
+     *
+     * @param text The date, twelve characters long
+     * @return Returns false if the year, month, day or hour are not valid
+     */
+    private boolean decodeHour(CharSequence text) {
+        int century = twoDigits(text, 0);
+        int yearOfCentury = twoDigits(text, 2);
+        int month = twoDigits(text, 4);
+        int day = twoDigits(text, 6);
+        int hour = twoDigits(text, 8);
+        if (century < 0 || yearOfCentury < 0 || month < 0 || day < 0 || hour < 0) {
+            return false;
+        }
+
+        int year = century * 100 + yearOfCentury;
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31 || hour > 24) {
+            return false;
+        }
+
+        // Same resolution as the smart resolver of DateTimeFormatter
+        day = Math.min(day, lengthOfMonth(year, month));
+
+        lastHourStart = epochDay(year, month, day) * MINUTES_PER_DAY + (long) hour * MINUTES_PER_HOUR;
+        lastHourMaxMinute = hour == 24 ? 0 : MINUTES_PER_HOUR - 1;
+        for (int i = 0; i < HOUR_LENGTH; i++) {
+            lastHour[i] = text.charAt(i);
+        }
+        hasLastHour = true;
+        return true;
+    }
+
+    /**
+     * Read two ASCII digits
+     *
+     * @param text   The text
+     * @param offset The position of the first digit
+     * @return Returns the number or -1 if either character isn't a digit
+     */
+    private static int twoDigits(CharSequence text, int offset) {
+        int tens = text.charAt(offset) - '0';
+        int units = text.charAt(offset + 1) - '0';
+        if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+            return -1;
+        }
+        return tens * 10 + units;
+    }
+
+    /**
+     * Get the number of days of a month
+     *
+     * @param year  The year
+     * @param month The month, from 1 to 12
+     * @return Returns the number of days, February of leap years included
+     */
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2 && isLeapYear(year)) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Check if a year of the proleptic Gregorian calendar is a leap year
+     *
+     * @param year The year
+     * @return Returns true if February has 29 days
+     */
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Count the days from the epoch to a date, as {@link java.time.LocalDate#toEpochDay()} does
+     *
+     * @param year  The year, from 1
+     * @param month The month, from 1 to 12
+     * @param day   The day, valid for the month
+     * @return Returns the number of days since 1970-01-01
+     */
+    private static long epochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12 + day - 1;
+        if (month > 2) {
+            total -= isLeapYear(year) ? 1 : 2;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}